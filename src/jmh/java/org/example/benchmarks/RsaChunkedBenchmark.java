@@ -0,0 +1,47 @@
+package org.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.example.utils.RSAUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RsaChunkedBenchmark {
+
+  @Param({"1024", "16384", "262144"})
+  public int payloadSize;
+
+  private String plainText;
+  private String cipherBase64;
+
+  @Setup(Level.Trial)
+  public void setUp(RsaState rsa) {
+    plainText = "a".repeat(payloadSize);
+    cipherBase64 = RSAUtils.encryptLargeToBase64(plainText, rsa.keyPair.getPublic());
+  }
+
+  @Benchmark
+  public String encryptChunked(RsaState rsa) {
+    return RSAUtils.encryptLargeToBase64(plainText, rsa.keyPair.getPublic());
+  }
+
+  @Benchmark
+  public String decryptChunked(RsaState rsa) {
+    return RSAUtils.decryptLargeFromBase64(cipherBase64, rsa.keyPair.getPrivate());
+  }
+}
@@ -0,0 +1,68 @@
+package org.example.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.example.utils.RSAUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RsaCipherBenchmark {
+
+  private static final String MESSAGE = "The quick brown fox jumps over!!";
+
+  private String cipherBase64;
+  private ByteBuffer plainBuffer;
+  private ByteBuffer cipherBuffer;
+  private ByteBuffer outBuffer;
+
+  @Setup(Level.Trial)
+  public void setUp(RsaState rsa) {
+    cipherBase64 = RSAUtils.encryptToBase64(MESSAGE, rsa.keyPair.getPublic());
+    byte[] plain = MESSAGE.getBytes(StandardCharsets.UTF_8);
+    plainBuffer = ByteBuffer.allocateDirect(plain.length).put(plain).flip();
+    cipherBuffer = ByteBuffer.allocateDirect(RSAUtils.encryptOutputSize(rsa.keyPair.getPublic()));
+    RSAUtils.encrypt(plainBuffer.duplicate(), cipherBuffer, rsa.keyPair.getPublic());
+    cipherBuffer.flip();
+    outBuffer = ByteBuffer.allocateDirect(RSAUtils.encryptOutputSize(rsa.keyPair.getPublic()));
+  }
+
+  @Benchmark
+  public String encryptSingleBlock(RsaState rsa) {
+    return RSAUtils.encryptToBase64(MESSAGE, rsa.keyPair.getPublic());
+  }
+
+  @Benchmark
+  public String decryptSingleBlock(RsaState rsa) {
+    return RSAUtils.decryptFromBase64(cipherBase64, rsa.keyPair.getPrivate());
+  }
+
+  @Benchmark
+  public int encryptSingleBlockBuffer(RsaState rsa) {
+    plainBuffer.rewind();
+    outBuffer.clear();
+    return RSAUtils.encrypt(plainBuffer, outBuffer, rsa.keyPair.getPublic());
+  }
+
+  @Benchmark
+  public int decryptSingleBlockBuffer(RsaState rsa) {
+    cipherBuffer.rewind();
+    outBuffer.clear();
+    return RSAUtils.decrypt(cipherBuffer, outBuffer, rsa.keyPair.getPrivate());
+  }
+}
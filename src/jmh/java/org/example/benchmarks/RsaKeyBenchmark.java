@@ -0,0 +1,54 @@
+package org.example.benchmarks;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+import org.example.utils.RSAUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RsaKeyBenchmark {
+
+  @Benchmark
+  public PublicKey decodePublicKey(RsaKeyState rsa) {
+    return RSAUtils.decodePublicKeyFromBase64(rsa.publicKeyBase64);
+  }
+
+  @Benchmark
+  public PrivateKey decodePrivateKey(RsaKeyState rsa) {
+    return RSAUtils.decodePrivateKeyFromBase64(rsa.privateKeyBase64);
+  }
+
+  // the caches are emptied first so these measure the KeyFactory parse the cache saves
+  @Benchmark
+  public PublicKey decodePublicKeyUncached(RsaKeyState rsa) {
+    RSAUtils.publicKeyCache().clear();
+    return RSAUtils.decodePublicKeyFromBase64(rsa.publicKeyBase64);
+  }
+
+  @Benchmark
+  public PrivateKey decodePrivateKeyUncached(RsaKeyState rsa) {
+    RSAUtils.privateKeyCache().clear();
+    return RSAUtils.decodePrivateKeyFromBase64(rsa.privateKeyBase64);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 10)
+  public KeyPair generateKeyPair(RsaKeyState rsa) {
+    return RSAUtils.generateKeyPair(rsa.keySize);
+  }
+}
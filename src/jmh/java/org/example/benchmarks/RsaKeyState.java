@@ -0,0 +1,29 @@
+package org.example.benchmarks;
+
+import java.security.KeyPair;
+import java.util.Base64;
+import org.example.utils.RSAUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Key material per key size; key parsing and generation do not depend on the padding. */
+@State(Scope.Benchmark)
+public class RsaKeyState {
+
+  @Param({"1024", "2048", "4096"})
+  public int keySize;
+
+  public KeyPair keyPair;
+  public String publicKeyBase64;
+  public String privateKeyBase64;
+
+  @Setup(Level.Trial)
+  public void setUpKeys() {
+    keyPair = RSAUtils.generateKeyPair(keySize);
+    publicKeyBase64 = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    privateKeyBase64 = Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+  }
+}
@@ -0,0 +1,20 @@
+package org.example.benchmarks;
+
+import org.example.utils.RSAUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class RsaState extends RsaKeyState {
+
+  @Param({"RSA/ECB/PKCS1Padding", "RSA/ECB/OAEPWithSHA-256AndMGF1Padding"})
+  public String transformation;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    RSAUtils.setTransformation(transformation);
+  }
+}
@@ -1,30 +1,164 @@
 package org.example;
 
-import org.example.parsers.FileInputParser;
-import org.example.parsers.InputParser;
+import static org.example.utils.AppLogger.LOG;
+
+import org.example.services.CliCommands;
 import org.example.services.ConfigRepl;
+import org.example.services.DaemonClient;
+import org.example.services.DaemonProtocol;
+import org.example.services.HttpEncryptionServer;
 import org.example.services.KeyStoreService;
 import org.example.services.RsaRepl;
+import org.example.services.UnixSocketDaemon;
+import org.example.utils.AsyncRsa;
+import org.example.utils.CliArgs;
 import org.example.utils.DirectoryFilePicker;
 import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Path;
 import java.security.KeyPair;
-import java.security.PrivateKey;
-import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 public final class Main {
 
   public static void main(String[] args) {
+    if (args.length > 0 && "serve".equals(args[0])) {
+      serve(CliArgs.parse(args, 1));
+      return;
+    }
+    if (args.length > 0 && "daemon".equals(args[0])) {
+      daemon(CliArgs.parse(args, 1));
+      return;
+    }
+    if (args.length > 0 && "client".equals(args[0])) {
+      System.exit(client(CliArgs.parse(args, 1)));
+    }
+    if (args.length > 0 && CliCommands.COMMANDS.contains(args[0])) {
+      System.exit(command(args[0], CliArgs.parse(args, 1)));
+    }
+    if (args.length > 0) {
+      CliCommands.printUsage();
+      System.exit(2);
+    }
     try (Scanner sc = new Scanner(System.in)) {
       ConfigRepl configRepl = new ConfigRepl(sc);
-      ConfigRepl.Config config = configRepl.readConfig();
-      RSAUtils.setTransformation(config.transformation());
-      KeyPair keys = new KeyStoreService().loadOrCreate(config.keySize());
-      new RsaRepl(sc, new DirectoryFilePicker(sc)).run(keys);
+      // generate the first key pair in the background while the remaining prompts are answered;
+      // the pool persists it under data/keys/pool, where the configured store picks it up
+      List<KeyStoreService> warmup = new ArrayList<>(1);
+      ConfigRepl.Config config = configRepl.readConfig(keySize -> {
+        KeyStoreService early =
+            new KeyStoreService(new RsaEngine(keySize, RSAUtils.DEFAULT_TRANSFORMATION));
+        if (!early.hasKeys()) {
+          early.prefetch(keySize);
+          warmup.add(early);
+        }
+      });
+      warmup.forEach(KeyStoreService::shutdown);
+      RsaEngine engine = new RsaEngine(config.keySize(), config.transformation())
+          .withCompression(config.compressionLevel());
+      RSAUtils.setParallelism(config.parallelism());
+      KeyStoreService keyStore = new KeyStoreService(engine);
+      try {
+        KeyPair keys = keyStore.loadOrCreate();
+        keyStore.prefetch(engine.keySize());
+        new RsaRepl(sc, new DirectoryFilePicker(sc), config.outputFormat(), engine, keyStore)
+            .run(keys);
+      } finally {
+        keyStore.shutdown();
+      }
+    }
+  }
+
+  private static RsaEngine configure(CliArgs cli) {
+    RSAUtils.setParallelism(cli.getInt("threads", RSAUtils.getParallelism()));
+    return new RsaEngine(cli.getInt("key-size", RSAUtils.DEFAULT_KEY_SIZE),
+        cli.get("transformation", RSAUtils.DEFAULT_TRANSFORMATION));
+  }
+
+  private static KeyPair loadKeys(RsaEngine engine) {
+    KeyStoreService keyStore = new KeyStoreService(engine);
+    try {
+      return keyStore.loadOrCreate();
+    } finally {
+      keyStore.shutdown();
+    }
+  }
+
+  private static void serve(CliArgs cli) {
+    try {
+      RsaEngine engine = configure(cli);
+      KeyPair keys = loadKeys(engine);
+      int cryptoThreads = cli.getInt("crypto-threads",
+          Runtime.getRuntime().availableProcessors());
+      AsyncRsa async = new AsyncRsa(engine, cryptoThreads,
+          cli.getInt("crypto-queue", cryptoThreads * AsyncRsa.DEFAULT_QUEUE_PER_THREAD),
+          AsyncRsa.Overload.parse(cli.get("overload", "abort")));
+      HttpEncryptionServer server = new HttpEncryptionServer(keys,
+          cli.get("host", "127.0.0.1"),
+          cli.getInt("port", HttpEncryptionServer.DEFAULT_PORT),
+          cli.getInt("max-concurrent", HttpEncryptionServer.DEFAULT_MAX_CONCURRENT), async);
+      Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+      server.start();
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Failed to start server: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static void daemon(CliArgs cli) {
+    try {
+      RsaEngine engine = configure(cli);
+      KeyPair keys = loadKeys(engine);
+      UnixSocketDaemon daemon = new UnixSocketDaemon(keys, engine,
+          Path.of(cli.get("socket", DaemonProtocol.DEFAULT_SOCKET.toString())),
+          cli.getInt("workers", RSAUtils.getParallelism()));
+      Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+      daemon.run();
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Failed to run daemon: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static int client(CliArgs cli) {
+    if (cli.positional().size() != 1) {
+      System.err.println("Usage: client <ping|encrypt|decrypt|encrypt-large|decrypt-large"
+          + "|public-key> [--socket path] [--binary]");
+      return 2;
     }
+    Path socket = Path.of(cli.get("socket", DaemonProtocol.DEFAULT_SOCKET.toString()));
+    try (DaemonClient client = new DaemonClient(socket)) {
+      OutputStream out = new BufferedOutputStream(System.out);
+      byte op = DaemonProtocol.opCode(cli.positional().get(0));
+      boolean takesInput = op != DaemonProtocol.OP_PING && op != DaemonProtocol.OP_PUBLIC_KEY;
+      client.call(op, !cli.has("binary"),
+          takesInput ? System.in : InputStream.nullInputStream(), out);
+      return 0;
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Daemon request failed: " + e.getMessage());
+      return 1;
+    }
+  }
+
+  private static int command(String name, CliArgs cli) {
+    try {
+      return new CliCommands(System.in, System.out).run(name, cli);
+    } catch (IOException | RuntimeException e) {
+      System.err.println(name + " failed: " + describe(e));
+      return 1;
+    }
+  }
+
+  private static String describe(Throwable e) {
+    // RSAUtils wraps the JCA exception; the cause usually says what actually went wrong
+    return e.getCause() == null ? e.getMessage()
+        : e.getMessage() + " (" + e.getCause().getMessage() + ")";
   }
 }
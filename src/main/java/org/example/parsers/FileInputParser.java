@@ -8,6 +8,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import org.example.utils.FileIoEvent;
 
 public final class FileInputParser {
   private final Path path;
@@ -23,11 +24,18 @@ public final class FileInputParser {
   }
 
   public InputStream parseStream() throws IOException {
-    return new BufferedInputStream(Files.newInputStream(path, StandardOpenOption.READ));
+    return new BufferedInputStream(
+        FileIoEvent.reading(path, Files.newInputStream(path, StandardOpenOption.READ)));
   }
 
   public String parseString() throws IOException {
-    return Files.readString(path, charset);
+    FileIoEvent event = new FileIoEvent();
+    // the size is only looked up while a recording has the event enabled
+    long size = event.isEnabled() ? Files.size(path) : 0;
+    event.begin();
+    String text = Files.readString(path, charset);
+    event.complete(path, false, size);
+    return text;
   }
 }
 
@@ -0,0 +1,296 @@
+package org.example.services;
+
+import static org.example.utils.AppLogger.LOG;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.example.parsers.FileInputParser;
+import org.example.utils.CipherContainer;
+import org.example.utils.Compression;
+import org.example.utils.FileUtils;
+import org.example.utils.KeyTag;
+import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
+
+/**
+ * Encrypts or decrypts every matching file below a directory. Each file runs on its own virtual
+ * thread, but at most {@code workers} are in flight: the directory walk blocks until a slot
+ * frees up, so a huge tree never queues more than {@code workers} files in memory.
+ */
+public class BulkEncryptor {
+
+  public static final int DEFAULT_WORKERS = 2 * Runtime.getRuntime().availableProcessors();
+  public static final String ENCRYPTED_SUFFIX = ".large.enc";
+  // hybrid and multi-recipient files use other formats and are left to their menu options
+  private static final String HYBRID_SUFFIX = ".hybrid.enc";
+  private static final String MULTI_SUFFIX = ".multi.enc";
+
+  public record Failure(Path file, String message) {}
+
+  public record Report(int files, int skipped, List<Failure> failures, long bytes,
+                       long elapsedNanos) {
+    public double filesPerSecond() {
+      return elapsedNanos == 0 ? 0 : files * 1e9 / elapsedNanos;
+    }
+
+    public double bytesPerSecond() {
+      return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s file(s), %s unchanged, %s failure(s), %s in %.2f s (%.1f files/s, %s/s)",
+          files, skipped, failures.size(), FileUtils.getFileSize(bytes), elapsedNanos / 1e9,
+          filesPerSecond(), FileUtils.getFileSize((long) bytesPerSecond()));
+    }
+  }
+
+  private interface FileTask {
+    /** Returns {@code false} when the file was skipped as already up to date. */
+    boolean run(Path relative, Path source, Path target) throws IOException;
+  }
+
+  private final KeyPair keyPair;
+  private final ConfigRepl.OutputFormat outputFormat;
+  private final int workers;
+  private final RsaEngine engine;
+  private final KeyStoreService keyStore;
+
+  public BulkEncryptor(KeyPair keyPair, ConfigRepl.OutputFormat outputFormat, int workers) {
+    this(keyPair, outputFormat, workers, RSAUtils.defaultEngine());
+  }
+
+  public BulkEncryptor(KeyPair keyPair, ConfigRepl.OutputFormat outputFormat, int workers,
+      RsaEngine engine) {
+    this(keyPair, outputFormat, workers, engine, null);
+  }
+
+  /** With a {@code keyStore}, each file is decrypted with the key it is tagged for. */
+  public BulkEncryptor(KeyPair keyPair, ConfigRepl.OutputFormat outputFormat, int workers,
+      RsaEngine engine, KeyStoreService keyStore) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Bulk mode needs at least one worker");
+    }
+    this.keyPair = keyPair;
+    this.outputFormat = outputFormat;
+    this.workers = workers;
+    this.engine = engine;
+    this.keyStore = keyStore;
+  }
+
+  /** Mirrors {@code inputDir} into {@code outputDir}, appending {@value #ENCRYPTED_SUFFIX}. */
+  public Report encryptAll(Path inputDir, Path outputDir, String... extensions)
+      throws IOException {
+    return process(inputDir, outputDir, FileUtils.getExtensions(extensions), p -> true,
+        name -> name + ENCRYPTED_SUFFIX, (relative, source, target) -> {
+          encryptFile(source, target);
+          return true;
+        });
+  }
+
+  /**
+   * Like {@link #encryptAll} but skips files the manifest beside {@code outputDir} records as
+   * already encrypted with the current key, so repeated runs only pay for changed data.
+   */
+  public Report encryptChanged(Path inputDir, Path outputDir, String... extensions)
+      throws IOException {
+    EncryptionManifest manifest = EncryptionManifest.load(
+        EncryptionManifest.locationFor(outputDir));
+    String keyFingerprint = RSAUtils.fingerprint(keyPair.getPublic());
+    Set<String> seen = ConcurrentHashMap.newKeySet();
+    Report report;
+    try {
+      report = process(inputDir, outputDir, FileUtils.getExtensions(extensions), p -> true,
+          name -> name + ENCRYPTED_SUFFIX, (relative, source, target) -> {
+            seen.add(relative.toString());
+            return encryptIfChanged(relative, source, target, manifest, keyFingerprint);
+          });
+    } catch (IOException | RuntimeException e) {
+      // the walk stopped early: keep what was encrypted so far, but unvisited files are not
+      // gone and must keep their entries
+      try {
+        manifest.save();
+      } catch (IOException saveFailure) {
+        e.addSuppressed(saveFailure);
+      }
+      throw e;
+    }
+    manifest.retain(seen);
+    manifest.save();
+    return report;
+  }
+
+  /**
+   * Encrypts a single file below {@code inputDir} unless {@code manifest} shows it is current.
+   * Returns {@code false} when it was skipped.
+   */
+  public boolean encryptChanged(Path inputDir, Path outputDir, Path source,
+      EncryptionManifest manifest) throws IOException {
+    Path relative = inputDir.relativize(source);
+    Path target = targetFor(outputDir, relative, name -> name + ENCRYPTED_SUFFIX);
+    Files.createDirectories(target.getParent());
+    try {
+      return encryptIfChanged(relative, source, target, manifest,
+          RSAUtils.fingerprint(keyPair.getPublic()));
+    } catch (IOException | RuntimeException e) {
+      deleteQuietly(target);
+      throw e;
+    }
+  }
+
+  private boolean encryptIfChanged(Path relative, Path source, Path target,
+      EncryptionManifest manifest, String keyFingerprint) throws IOException {
+    String path = relative.toString();
+    String settings = settings();
+    if (manifest.isCurrent(path, source, target, keyFingerprint, settings)) {
+      return false;
+    }
+    // hashed while it is encrypted, so the file is read once and the hash matches the output
+    MessageDigest digest = EncryptionManifest.newDigest();
+    encryptFile(source, target, digest);
+    manifest.record(path, source, target, keyFingerprint, settings,
+        HexFormat.of().formatHex(digest.digest()));
+    return true;
+  }
+
+  /**
+   * Everything besides the key that changes the bytes of an output file; formats and
+   * compression levels share the {@value #ENCRYPTED_SUFFIX} name, so the manifest must tell
+   * them apart.
+   */
+  private String settings() {
+    if (outputFormat == ConfigRepl.OutputFormat.BINARY) {
+      return outputFormat + " " + engine.transformation();
+    }
+    return outputFormat + " " + engine.transformation() + " "
+        + (engine.compressionLevel() == Compression.OFF
+            ? "uncompressed" : "deflate-" + engine.compressionLevel());
+  }
+
+  /** Decrypts every chunked {@code .enc} file below {@code inputDir}, dropping the suffix. */
+  public Report decryptAll(Path inputDir, Path outputDir) throws IOException {
+    return process(inputDir, outputDir, Set.of("enc"),
+        p -> !p.getFileName().toString().endsWith(HYBRID_SUFFIX)
+            && !p.getFileName().toString().endsWith(MULTI_SUFFIX),
+        BulkEncryptor::stripSuffix, (relative, source, target) -> {
+          decryptFile(source, target);
+          return true;
+        });
+  }
+
+  private Report process(Path inputDir, Path outputDir, Set<String> exts, Predicate<Path> accept,
+      UnaryOperator<String> rename, FileTask task) throws IOException {
+    Semaphore slots = new Semaphore(workers);
+    AtomicInteger files = new AtomicInteger();
+    AtomicInteger skipped = new AtomicInteger();
+    AtomicLong bytes = new AtomicLong();
+    List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+    long start = System.nanoTime();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Stream<Path> sources = FileUtils.walkFiles(inputDir, exts).filter(accept)) {
+      for (Path source : (Iterable<Path>) sources::iterator) {
+        Path relative = inputDir.relativize(source);
+        Path target = targetFor(outputDir, relative, rename);
+        slots.acquireUninterruptibly();
+        executor.execute(() -> {
+          try {
+            Files.createDirectories(target.getParent());
+            if (task.run(relative, source, target)) {
+              files.incrementAndGet();
+              bytes.addAndGet(Files.size(source));
+            } else {
+              skipped.incrementAndGet();
+            }
+          } catch (IOException | RuntimeException e) {
+            failures.add(new Failure(source, e.getMessage()));
+            deleteQuietly(target);
+          } finally {
+            slots.release();
+          }
+        });
+      }
+    }
+    return new Report(files.get(), skipped.get(), List.copyOf(failures), bytes.get(),
+        System.nanoTime() - start);
+  }
+
+  private void encryptFile(Path source, Path target) throws IOException {
+    encryptFile(source, target, null);
+  }
+
+  /** {@code digest}, if not {@code null}, sees every plaintext byte that gets encrypted. */
+  private void encryptFile(Path source, Path target, MessageDigest digest) throws IOException {
+    if (outputFormat == ConfigRepl.OutputFormat.BINARY) {
+      CipherContainer.encryptMapped(source, target, keyPair.getPublic(), engine, digest);
+      return;
+    }
+    InputStream plain = new FileInputParser(source).parseStream();
+    try (InputStream in = digest == null ? plain : new DigestInputStream(plain, digest);
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+      KeyTag.write(out, KeyTag.idOf(keyPair.getPublic()));
+      engine.encryptLargeToBase64(in, out, keyPair.getPublic());
+    }
+  }
+
+  private void decryptFile(Path source, Path target) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+      if (CipherContainer.isContainer(source)) {
+        String fingerprint = CipherContainer.readHeader(source).keyFingerprint();
+        PrivateKey privateKey = keyStore != null && keyStore.contains(KeyTag.idOf(fingerprint))
+            ? keyStore.keyPairByFingerprint(fingerprint).getPrivate() : keyPair.getPrivate();
+        CipherContainer.decrypt(source, out, privateKey, engine);
+      } else {
+        String keyId = keyStore == null ? null : KeyTag.read(source);
+        PrivateKey privateKey = keyId != null && keyStore.contains(keyId)
+            ? keyStore.keyPair(keyId).getPrivate() : keyPair.getPrivate();
+        try (InputStream in = new FileInputParser(source).parseStream()) {
+          engine.decryptLargeFromBase64(in, out, privateKey);
+        }
+      }
+    }
+  }
+
+  private static Path targetFor(Path outputDir, Path relative, UnaryOperator<String> rename) {
+    return outputDir.resolve(relative)
+        .resolveSibling(rename.apply(relative.getFileName().toString()));
+  }
+
+  private static String stripSuffix(String name) {
+    if (name.endsWith(ENCRYPTED_SUFFIX)) {
+      return name.substring(0, name.length() - ENCRYPTED_SUFFIX.length());
+    }
+    return name.substring(0, name.length() - ".enc".length());
+  }
+
+  private static void deleteQuietly(Path target) {
+    try {
+      Files.deleteIfExists(target);
+    } catch (IOException e) {
+      LOG.warning(String.format("Could not remove partial output %s", target));
+    }
+  }
+}
@@ -0,0 +1,336 @@
+package org.example.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.example.utils.CipherContainer;
+import org.example.utils.CliArgs;
+import org.example.utils.Compression;
+import org.example.utils.KeyTag;
+import org.example.utils.MultiRecipientUtils;
+import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
+import org.example.utils.SeekableDecryptor;
+
+/**
+ * Prompt-free subcommands that read stdin and write stdout, e.g.
+ * {@code cat big.log | app encrypt-large --binary > big.enc}. Diagnostics go to stderr.
+ */
+public class CliCommands {
+
+  public static final Set<String> COMMANDS =
+      Set.of("encrypt", "decrypt", "encrypt-large", "decrypt-large", "keygen",
+          "bulk-encrypt", "bulk-decrypt", "watch", "decrypt-range", "encrypt-multi",
+          "decrypt-multi", "rotate", "keys");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_SINGLE_INPUT = 64 * 1024;
+  private static final Path KEY_DIR = Path.of("data", "keys");
+
+  private final InputStream in;
+  private final OutputStream out;
+  private RsaEngine engine = RSAUtils.defaultEngine();
+  private KeyStoreService keyStore;
+
+  public CliCommands(InputStream in, OutputStream out) {
+    this.in = new BufferedInputStream(in, BUFFER_SIZE);
+    this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+  }
+
+  public static void printUsage() {
+    System.err.println("""
+        Usage: <command> [options]  (reads stdin, writes stdout)
+          encrypt        single RSA block, prints Base64
+          decrypt        Base64 single block to plaintext
+          encrypt-large  chunked RSA, any input size
+          decrypt-large  reverses encrypt-large
+          keygen         new active key pair in --out-dir, older keys stay usable
+          rotate         new active key in data/keys, older keys stay usable
+          keys           lists the key IDs in data/keys
+          decrypt-range  plaintext bytes [--offset, --offset + --length) of chunked --file
+          encrypt-multi  AES-GCM once, session key wrapped for every --recipients key
+          decrypt-multi  reverses encrypt-multi with --private-key
+          bulk-encrypt   every file under --in (default data/input) into --out
+          bulk-decrypt   every .enc file under --in (default data/output) into --out
+          watch          encrypt files as they land in --in until interrupted
+        Options:
+          --public-key <path>      default data/keys/public.key
+          --private-key <path>     default: the data/keys key the input is tagged for
+          --transformation <name>  default RSA/ECB/PKCS1Padding
+          --threads <n>            parallelism for chunked mode
+          --binary                 raw bytes instead of Base64
+          --compress [1-9]         deflate before chunked Base64 encryption (default level 6);
+                                   decryption detects compressed input by itself
+          --key-size <bits>        keygen only, default 2048
+          --out-dir <dir>          keygen only, default data/keys
+          --force                  keygen only, add a key even if one exists
+          --in / --out <dir>       bulk only, source and target directories
+          --ext <a,b>              bulk-encrypt only, extensions to include (default all)
+          --workers <n>            bulk only, files processed concurrently
+          --full                   bulk-encrypt only, ignore the manifest and redo every file
+          --debounce-ms <ms>       watch only, quiet period before a file is encrypted
+          --recipients <a,b>       encrypt-multi only, public key files (default --public-key)
+        Other modes: serve, daemon, client; no arguments starts the interactive menu.""");
+  }
+
+  public int run(String command, CliArgs cli) throws IOException {
+    engine = new RsaEngine(cli.getInt("key-size", RSAUtils.DEFAULT_KEY_SIZE),
+        cli.get("transformation", RSAUtils.DEFAULT_TRANSFORMATION));
+    if (cli.has("compress")) {
+      if (cli.has("binary")) {
+        System.err.println("--compress only applies to Base64 output");
+        return 2;
+      }
+      engine = engine.withCompression("true".equals(cli.get("compress", ""))
+          ? Compression.DEFAULT_LEVEL : cli.getInt("compress", Compression.DEFAULT_LEVEL));
+    }
+    RSAUtils.setParallelism(cli.getInt("threads", RSAUtils.getParallelism()));
+    try {
+      return dispatch(command, cli);
+    } finally {
+      if (keyStore != null) {
+        keyStore.shutdown();
+      }
+    }
+  }
+
+  private int dispatch(String command, CliArgs cli) throws IOException {
+    boolean binary = cli.has("binary");
+    switch (command) {
+      case "encrypt" -> encrypt(publicKey(cli), binary);
+      case "decrypt" -> decrypt(privateKey(cli), binary);
+      case "encrypt-large" -> {
+        if (binary) {
+          engine.encryptLarge(in, out, publicKey(cli));
+        } else {
+          PublicKey publicKey = publicKey(cli);
+          KeyTag.write(out, KeyTag.idOf(publicKey));
+          Compression.Stats stats = engine.encryptLargeToBase64(in, out, publicKey);
+          if (engine.compressionLevel() != Compression.OFF) {
+            System.err.println("compressed " + stats);
+          }
+        }
+      }
+      case "decrypt-large" -> {
+        if (binary) {
+          engine.decryptLarge(in, out, privateKey(cli));
+        } else {
+          engine.decryptLargeFromBase64(in, out, privateKey(cli, KeyTag.read(in)));
+        }
+      }
+      case "bulk-encrypt", "bulk-decrypt" -> {
+        if (!bulk(command.equals("bulk-encrypt"), cli)) {
+          return 1;
+        }
+      }
+      case "watch" -> watch(cli);
+      case "decrypt-range" -> {
+        if (!cli.has("file") || !cli.has("length")) {
+          System.err.println("decrypt-range needs --file and --length");
+          return 2;
+        }
+        Path file = Path.of(cli.get("file", ""));
+        out.write(SeekableDecryptor.decryptRange(file, cli.getLong("offset", 0),
+            cli.getInt("length", 0), privateKey(cli, keyIdOf(file)), engine));
+      }
+      case "encrypt-multi" ->
+          MultiRecipientUtils.encryptToBase64(in, out, recipients(cli), engine);
+      case "decrypt-multi" ->
+          MultiRecipientUtils.decryptFromBase64(in, out, privateKey(cli), engine);
+      case "rotate" -> rotate(cli);
+      case "keys" -> keys();
+      case "keygen" -> {
+        if (!keygen(cli)) {
+          return 1;
+        }
+      }
+      default -> {
+        printUsage();
+        return 2;
+      }
+    }
+    out.flush();
+    return 0;
+  }
+
+  private void encrypt(PublicKey publicKey, boolean binary) throws IOException {
+    byte[] cipherBytes = engine.encrypt(readSingleInput(), publicKey);
+    if (binary) {
+      out.write(cipherBytes);
+    } else {
+      out.write(Base64.getEncoder().encode(cipherBytes));
+      out.write('\n');
+    }
+  }
+
+  private void decrypt(PrivateKey privateKey, boolean binary) throws IOException {
+    byte[] input = readSingleInput();
+    byte[] cipherBytes = binary ? input
+        : Base64.getDecoder().decode(new String(input, StandardCharsets.US_ASCII).trim());
+    out.write(engine.decrypt(cipherBytes, privateKey));
+  }
+
+  private boolean keygen(CliArgs cli) throws IOException {
+    Path dir = Path.of(cli.get("out-dir", KEY_DIR.toString()));
+    // through the key store so the new pair gets an ID and the previous one stays decryptable
+    KeyStoreService keyStore = new KeyStoreService(dir, engine);
+    if (!cli.has("force") && (keyStore.hasKeys() || Files.exists(dir.resolve("public.key"))
+        || Files.exists(dir.resolve("private.key")))) {
+      System.err.println("Keys already exist in " + dir + ", pass --force to add a new one");
+      return false;
+    }
+    KeyPair keyPair;
+    try {
+      keyPair = keyStore.rotate(engine.keySize());
+    } finally {
+      keyStore.shutdown();
+    }
+    out.write((RSAUtils.fingerprint(keyPair.getPublic()) + "\n")
+        .getBytes(StandardCharsets.US_ASCII));
+    return true;
+  }
+
+  private void rotate(CliArgs cli) throws IOException {
+    KeyStoreService keyStore = keyStore();
+    if (keyStore.hasKeys()) {
+      keyStore.rotate(engine.keySize());
+    } else {
+      keyStore.loadOrCreate();
+    }
+    out.write((keyStore.activeId() + "\n").getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private void keys() throws IOException {
+    for (KeyStoreService.KeyInfo key : keyStore().keys()) {
+      out.write((String.join("\t", key.id(), Integer.toString(key.keySize()),
+          Instant.ofEpochMilli(key.createdMillis()).toString(), key.status().name()) + "\n")
+          .getBytes(StandardCharsets.US_ASCII));
+    }
+  }
+
+  private boolean bulk(boolean encrypt, CliArgs cli) throws IOException {
+    // without an explicit --private-key every file picks its own key from data/keys
+    BulkEncryptor bulk = new BulkEncryptor(
+        encrypt ? new KeyPair(publicKey(cli), null) : new KeyPair(null, privateKey(cli)),
+        cli.has("binary") ? ConfigRepl.OutputFormat.BINARY : ConfigRepl.OutputFormat.BASE64,
+        cli.getInt("workers", BulkEncryptor.DEFAULT_WORKERS), engine,
+        encrypt || cli.has("private-key") ? null : keyStore());
+    BulkEncryptor.Report report = encrypt
+        ? bulkEncrypt(bulk, cli)
+        : bulk.decryptAll(Path.of(cli.get("in", "data/output")),
+            Path.of(cli.get("out", "data/decrypted")));
+    out.write((report + "\n").getBytes(StandardCharsets.UTF_8));
+    out.flush();
+    for (BulkEncryptor.Failure failure : report.failures()) {
+      System.err.println("FAILED " + failure.file() + ": " + failure.message());
+    }
+    return report.failures().isEmpty();
+  }
+
+  private void watch(CliArgs cli) throws IOException {
+    int workers = cli.getInt("workers", Runtime.getRuntime().availableProcessors());
+    BulkEncryptor encryptor = new BulkEncryptor(new KeyPair(publicKey(cli), null),
+        cli.has("binary") ? ConfigRepl.OutputFormat.BINARY : ConfigRepl.OutputFormat.BASE64,
+        workers, engine);
+    FolderWatcher watcher = new FolderWatcher(encryptor, Path.of(cli.get("in", "data/input")),
+        Path.of(cli.get("out", "data/output")), workers,
+        cli.getInt("debounce-ms", (int) FolderWatcher.DEFAULT_DEBOUNCE_MS),
+        cli.has("ext") ? cli.get("ext", "").split(",") : new String[0]);
+    CountDownLatch stopped = new CountDownLatch(1);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        System.err.println("Failed to stop watcher: " + e.getMessage());
+      }
+      stopped.countDown();
+    }));
+    watcher.start();
+    try {
+      stopped.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static BulkEncryptor.Report bulkEncrypt(BulkEncryptor bulk, CliArgs cli)
+      throws IOException {
+    Path inputDir = Path.of(cli.get("in", "data/input"));
+    Path outputDir = Path.of(cli.get("out", "data/output"));
+    String[] extensions = cli.has("ext") ? cli.get("ext", "").split(",") : new String[0];
+    return cli.has("full")
+        ? bulk.encryptAll(inputDir, outputDir, extensions)
+        : bulk.encryptChanged(inputDir, outputDir, extensions);
+  }
+
+  private byte[] readSingleInput() throws IOException {
+    byte[] input = in.readNBytes(MAX_SINGLE_INPUT + 1);
+    if (input.length > MAX_SINGLE_INPUT) {
+      throw new IllegalArgumentException(
+          "Input too large for single-block mode, use encrypt-large");
+    }
+    return input;
+  }
+
+  private static PublicKey publicKey(CliArgs cli) {
+    return RSAUtils.loadPublicKey(Path.of(
+        cli.get("public-key", KEY_DIR.resolve("public.key").toString())));
+  }
+
+  private static List<PublicKey> recipients(CliArgs cli) {
+    if (!cli.has("recipients")) {
+      return List.of(publicKey(cli));
+    }
+    List<PublicKey> recipients = new ArrayList<>();
+    for (String name : cli.get("recipients", "").split(",")) {
+      if (!name.isBlank()) {
+        recipients.add(RSAUtils.loadPublicKey(Path.of(name.trim())));
+      }
+    }
+    return recipients;
+  }
+
+  /**
+   * {@code --private-key} if given, otherwise the data/keys pair for {@code keyId} (from a key
+   * tag or container header), otherwise the default key file.
+   */
+  private PrivateKey privateKey(CliArgs cli, String keyId) {
+    if (keyId != null && !cli.has("private-key") && keyStore().contains(keyId)) {
+      return keyStore().keyPair(keyId).getPrivate();
+    }
+    return privateKey(cli);
+  }
+
+  /** The data/keys store, opened on first use so its index is read once per command. */
+  private KeyStoreService keyStore() {
+    if (keyStore == null) {
+      keyStore = new KeyStoreService(KEY_DIR, engine);
+    }
+    return keyStore;
+  }
+
+  private static String keyIdOf(Path file) throws IOException {
+    return CipherContainer.isContainer(file)
+        ? KeyTag.idOf(CipherContainer.readHeader(file).keyFingerprint())
+        : KeyTag.read(file);
+  }
+
+  private static PrivateKey privateKey(CliArgs cli) {
+    return RSAUtils.loadPrivateKey(Path.of(
+        cli.get("private-key", KEY_DIR.resolve("private.key").toString())));
+  }
+}
@@ -2,13 +2,18 @@ package org.example.services;
 
 import static org.example.utils.AppLogger.LOG;
 
+import org.example.utils.Compression;
 import org.example.utils.RSAUtils;
 
 import java.util.Scanner;
+import java.util.function.IntConsumer;
 
 public class ConfigRepl {
 
-  public record Config(int keySize, String transformation) {}
+  public enum OutputFormat { BASE64, BINARY }
+
+  public record Config(int keySize, String transformation, int parallelism,
+                       OutputFormat outputFormat, int compressionLevel) {}
 
   private final Scanner sc;
 
@@ -17,16 +22,30 @@ public class ConfigRepl {
   }
 
   public Config readConfig() {
+    return readConfig(keySize -> { });
+  }
+
+  public Config readConfig(IntConsumer onKeySizeChosen) {
     LOG.info("=== RSA configuration ===");
     int keySize = askKeySize();
+    onKeySizeChosen.accept(keySize);
     String transformation = askTransformation();
+    int parallelism = askParallelism();
+    OutputFormat outputFormat = askOutputFormat();
+    int compressionLevel = outputFormat == OutputFormat.BASE64
+        ? askCompressionLevel() : Compression.OFF;
 
     LOG.info("");
     LOG.info(String.format("Using RSA key size: %s bits", keySize));
     LOG.info(String.format("Using cipher transformation: %s" , transformation));
+    LOG.info(String.format("Using %s worker thread(s) for chunked RSA", parallelism));
+    LOG.info(String.format("Using %s output files", outputFormat));
+    if (compressionLevel != Compression.OFF) {
+      LOG.info(String.format("Compressing chunked plaintext at level %s", compressionLevel));
+    }
     LOG.info("");
 
-    return new Config(keySize, transformation);
+    return new Config(keySize, transformation, parallelism, outputFormat, compressionLevel);
   }
 
   private int askKeySize() {
@@ -73,4 +92,70 @@ public class ConfigRepl {
       }
     }
   }
+
+  private OutputFormat askOutputFormat() {
+    while (true) {
+      LOG.info("");
+      LOG.info("Choose encrypted file format:");
+      LOG.info("  1) Base64 text (default)");
+      LOG.info("  2) Binary container (smaller, faster)");
+      System.out.print("Option [1]: ");
+
+      String line = sc.nextLine().trim();
+
+      switch (line) {
+        case "2":
+          return OutputFormat.BINARY;
+        case "", "1":
+          return OutputFormat.BASE64;
+        default:
+          LOG.info("Unknown option, please choose 1 or 2.");
+      }
+    }
+  }
+
+  private int askCompressionLevel() {
+    while (true) {
+      LOG.info("");
+      LOG.info("Compress chunked plaintext before RSA (1 fastest - 9 smallest, 0 = off):");
+      System.out.print("Level [0]: ");
+
+      String line = sc.nextLine().trim();
+      if (line.isEmpty() || line.equals("0")) {
+        return Compression.OFF;
+      }
+      try {
+        int level = Integer.parseInt(line);
+        if (level >= 1 && level <= 9) {
+          return level;
+        }
+      } catch (NumberFormatException ignored) {
+        // fall through to the retry message
+      }
+      LOG.info("Please enter a number from 0 to 9.");
+    }
+  }
+
+  private int askParallelism() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    while (true) {
+      LOG.info("");
+      LOG.info(String.format("Worker threads for chunked RSA (1-%s):", cores));
+      System.out.print(String.format("Threads [%s]: ", cores));
+
+      String line = sc.nextLine().trim();
+      if (line.isEmpty()) {
+        return cores;
+      }
+      try {
+        int threads = Integer.parseInt(line);
+        if (threads >= 1 && threads <= cores) {
+          return threads;
+        }
+      } catch (NumberFormatException ignored) {
+        // fall through to the retry message
+      }
+      LOG.info(String.format("Please enter a number from 1 to %s.", cores));
+    }
+  }
 }
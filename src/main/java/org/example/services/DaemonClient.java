@@ -0,0 +1,87 @@
+package org.example.services;
+
+import static org.example.services.DaemonProtocol.FLAG_BASE64;
+import static org.example.services.DaemonProtocol.MAGIC;
+import static org.example.services.DaemonProtocol.MAX_FRAME;
+import static org.example.services.DaemonProtocol.STATUS_OK;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import org.example.services.DaemonProtocol.FrameInputStream;
+import org.example.services.DaemonProtocol.FrameOutputStream;
+
+/** Thin client for {@link UnixSocketDaemon}; one connection can carry many requests. */
+public class DaemonClient implements Closeable {
+
+  private final SocketChannel channel;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  public DaemonClient(Path socketPath) throws IOException {
+    this.channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+    channel.connect(UnixDomainSocketAddress.of(socketPath));
+    this.in = new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(channel), MAX_FRAME));
+    this.out = new DataOutputStream(
+        new BufferedOutputStream(Channels.newOutputStream(channel), MAX_FRAME));
+  }
+
+  /**
+   * Sends {@code request} to the daemon and streams the reply into {@code response}. The request
+   * is uploaded on a separate thread so large payloads never deadlock on full socket buffers.
+   */
+  public void call(byte op, boolean base64, InputStream request, OutputStream response)
+      throws IOException {
+    out.writeByte(MAGIC);
+    out.writeByte(op);
+    out.writeByte(base64 ? FLAG_BASE64 : 0);
+
+    IOException[] uploadFailure = new IOException[1];
+    Thread uploader = Thread.ofVirtual().start(() -> {
+      try (OutputStream frames = new FrameOutputStream(out)) {
+        request.transferTo(frames);
+      } catch (IOException e) {
+        uploadFailure[0] = e;
+      }
+    });
+
+    try {
+      int status = in.readByte();
+      if (status != STATUS_OK) {
+        throw new IOException(in.readUTF());
+      }
+      try (InputStream frames = new FrameInputStream(in)) {
+        frames.transferTo(response);
+      }
+      response.flush();
+    } catch (EOFException e) {
+      throw new EOFException("Daemon aborted the request, see the daemon log for details");
+    } finally {
+      try {
+        uploader.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (uploadFailure[0] != null) {
+      throw uploadFailure[0];
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
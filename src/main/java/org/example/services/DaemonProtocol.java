@@ -0,0 +1,170 @@
+package org.example.services;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Wire format shared by {@link UnixSocketDaemon} and {@link DaemonClient}.
+ *
+ * <p>Request: {@code MAGIC | op | flags | frames}. Response: {@code status | frames} on success
+ * or {@code status | UTF message} on error. A payload is sent as {@code int length | bytes}
+ * frames terminated by a zero-length frame, so both sides can stream.
+ */
+public final class DaemonProtocol {
+
+  public static final Path DEFAULT_SOCKET = Path.of("data", "rsa.sock");
+
+  public static final byte MAGIC = 'R';
+
+  public static final byte OP_PING = 0;
+  public static final byte OP_ENCRYPT = 1;
+  public static final byte OP_DECRYPT = 2;
+  public static final byte OP_ENCRYPT_LARGE = 3;
+  public static final byte OP_DECRYPT_LARGE = 4;
+  public static final byte OP_PUBLIC_KEY = 5;
+
+  public static final byte FLAG_BASE64 = 1;
+
+  public static final byte STATUS_OK = 0;
+  public static final byte STATUS_ERROR = 1;
+
+  public static final int MAX_FRAME = 64 * 1024;
+
+  private DaemonProtocol() {
+  }
+
+  public static byte opCode(String command) {
+    return switch (command) {
+      case "ping" -> OP_PING;
+      case "encrypt" -> OP_ENCRYPT;
+      case "decrypt" -> OP_DECRYPT;
+      case "encrypt-large" -> OP_ENCRYPT_LARGE;
+      case "decrypt-large" -> OP_DECRYPT_LARGE;
+      case "public-key" -> OP_PUBLIC_KEY;
+      default -> throw new IllegalArgumentException("Unknown daemon command: " + command);
+    };
+  }
+
+  static final class FrameOutputStream extends OutputStream {
+    private final DataOutputStream out;
+    private final byte[] buffer = new byte[MAX_FRAME];
+    private int count;
+    private boolean closed;
+
+    FrameOutputStream(OutputStream out) {
+      this.out = new DataOutputStream(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (count == buffer.length) {
+        flushFrame();
+      }
+      buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (count == buffer.length) {
+          flushFrame();
+        }
+        int n = Math.min(len, buffer.length - count);
+        System.arraycopy(b, off, buffer, count, n);
+        count += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      flushFrame();
+      out.flush();
+    }
+
+    // ends the payload without closing the connection
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      flushFrame();
+      out.writeInt(0);
+      out.flush();
+    }
+
+    private void flushFrame() throws IOException {
+      if (count > 0) {
+        out.writeInt(count);
+        out.write(buffer, 0, count);
+        count = 0;
+      }
+    }
+  }
+
+  static final class FrameInputStream extends InputStream {
+    private final DataInputStream in;
+    private int remaining;
+    private boolean finished;
+
+    FrameInputStream(InputStream in) {
+      this.in = new DataInputStream(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!nextFrame()) {
+        return -1;
+      }
+      int n = in.read(b, off, Math.min(len, remaining));
+      if (n < 0) {
+        throw new EOFException("Connection closed inside a frame");
+      }
+      remaining -= n;
+      return n;
+    }
+
+    // drains the rest of the payload so the connection can carry the next message
+    @Override
+    public void close() throws IOException {
+      while (nextFrame()) {
+        in.skipNBytes(remaining);
+        remaining = 0;
+      }
+    }
+
+    private boolean nextFrame() throws IOException {
+      while (remaining == 0) {
+        if (finished) {
+          return false;
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME) {
+          throw new IOException("Invalid frame length: " + length);
+        }
+        if (length == 0) {
+          finished = true;
+          return false;
+        }
+        remaining = length;
+      }
+      return true;
+    }
+  }
+}
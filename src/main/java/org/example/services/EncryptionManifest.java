@@ -0,0 +1,169 @@
+package org.example.services;
+
+import static org.example.utils.AppLogger.LOG;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what was encrypted in earlier bulk runs, one tab-separated line per source file:
+ * {@code path | size | mtime | sha256 | key fingerprint | settings | output path}, where
+ * settings describes the output format, transformation and compression. A file counts as
+ * unchanged when size, key, settings and output still match and either the mtime or the content
+ * hash is the same, so a plain {@code touch} does not trigger re-encryption. Lines written
+ * before the settings column existed load with empty settings and are re-encrypted once.
+ */
+public class EncryptionManifest {
+
+  public record Entry(String path, long size, long modifiedMillis, String sha256,
+                      String keyFingerprint, String settings, String outputPath) {}
+
+  private static final int FIELDS = 7;
+  private static final int FIELDS_WITHOUT_SETTINGS = 6;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path file;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private EncryptionManifest(Path file) {
+    this.file = file;
+  }
+
+  /** The manifest for {@code outputDir} lives beside it, e.g. {@code data/output.manifest}. */
+  public static Path locationFor(Path outputDir) {
+    Path absolute = outputDir.toAbsolutePath().normalize();
+    return absolute.resolveSibling(absolute.getFileName() + ".manifest");
+  }
+
+  public static EncryptionManifest load(Path file) throws IOException {
+    EncryptionManifest manifest = new EncryptionManifest(file);
+    if (!Files.exists(file)) {
+      return manifest;
+    }
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    for (String line : lines) {
+      String[] f = line.split("\t");
+      if (line.isBlank() || line.startsWith("#")) {
+        continue;
+      }
+      if (f.length != FIELDS && f.length != FIELDS_WITHOUT_SETTINGS) {
+        LOG.warning(String.format("Ignoring malformed manifest line in %s", file));
+        continue;
+      }
+      try {
+        boolean hasSettings = f.length == FIELDS;
+        Entry entry = new Entry(decode(f[0]), Long.parseLong(f[1]), Long.parseLong(f[2]), f[3],
+            f[4], hasSettings ? decode(f[5]) : "", decode(f[f.length - 1]));
+        manifest.entries.put(entry.path(), entry);
+      } catch (IllegalArgumentException e) {
+        LOG.warning(String.format("Ignoring malformed manifest line in %s", file));
+      }
+    }
+    return manifest;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns {@code true} when {@code source} was already encrypted to {@code output} with the
+   * given key and settings and has not changed since.
+   */
+  public boolean isCurrent(String path, Path source, Path output, String keyFingerprint,
+      String settings) throws IOException {
+    Entry entry = entries.get(path);
+    if (entry == null
+        || !entry.keyFingerprint().equals(keyFingerprint)
+        || !entry.settings().equals(settings)
+        || !entry.outputPath().equals(output.toString())
+        || !Files.exists(output)
+        || entry.size() != Files.size(source)) {
+      return false;
+    }
+    long modified = Files.getLastModifiedTime(source).toMillis();
+    if (entry.modifiedMillis() == modified) {
+      return true;
+    }
+    // touched but possibly not modified: only the hash can tell
+    if (!entry.sha256().equals(sha256(source))) {
+      return false;
+    }
+    entries.put(path, new Entry(path, entry.size(), modified, entry.sha256(),
+        keyFingerprint, settings, entry.outputPath()));
+    return true;
+  }
+
+  public void record(String path, Path source, Path output, String keyFingerprint,
+      String settings, String sha256) throws IOException {
+    entries.put(path, new Entry(path, Files.size(source),
+        Files.getLastModifiedTime(source).toMillis(), sha256, keyFingerprint, settings,
+        output.toString()));
+  }
+
+  /** Drops entries for source files that no longer exist. */
+  public void retain(Set<String> paths) {
+    entries.keySet().retainAll(paths);
+  }
+
+  public void save() throws IOException {
+    Files.createDirectories(file.getParent());
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+      writer.write("# path\tsize\tmtime\tsha256\tkey\tsettings\toutput");
+      writer.newLine();
+      for (Entry e : new TreeMap<>(entries).values()) {
+        writer.write(String.join("\t", encode(e.path()), Long.toString(e.size()),
+            Long.toString(e.modifiedMillis()), e.sha256(), e.keyFingerprint(),
+            encode(e.settings()), encode(e.outputPath())));
+        writer.newLine();
+      }
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public static String sha256(Path source) throws IOException {
+    try (InputStream in = Files.newInputStream(source)) {
+      MessageDigest digest = newDigest();
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, n);
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    }
+  }
+
+  /** The digest behind the sha256 column, for hashing a file while it is being encrypted. */
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  // paths may contain tabs or newlines; percent-encoding keeps one entry per line
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static String decode(String value) {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,262 @@
+package org.example.services;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static org.example.utils.AppLogger.LOG;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.example.utils.FileUtils;
+
+/**
+ * Encrypts files as they appear below an input directory. Create/modify events only mark a
+ * file as pending; it is queued for encryption once no event has arrived for the debounce
+ * period and its size stopped changing, so half-written uploads are never picked up. Files
+ * that arrived while the watcher was down are caught up through the manifest on start.
+ */
+public class FolderWatcher implements Closeable {
+
+  public static final long DEFAULT_DEBOUNCE_MS = 500;
+  private static final long MIN_TICK_MS = 10;
+  private static final long MAX_TICK_MS = 100;
+  private static final long MISSING = -1;
+
+  private record Pending(long firstEventNanos, long lastChangeNanos, long size) {}
+
+  private final BulkEncryptor encryptor;
+  private final Path inputDir;
+  private final Path outputDir;
+  private final Set<String> exts;
+  private final long debounceNanos;
+  private final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+  private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+  private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+  // caps how many files are encrypted at once; their RSA blocks run on the pipeline threads
+  private final ExecutorService workers;
+  private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "rsa-watch-debounce");
+    t.setDaemon(true);
+    return t;
+  });
+  private WatchService watchService;
+  private Thread watchThread;
+  private EncryptionManifest manifest;
+  private volatile boolean dirty;
+
+  public FolderWatcher(BulkEncryptor encryptor, Path inputDir, Path outputDir, int workers,
+      long debounceMs, String... extensions) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Watch mode needs at least one worker");
+    }
+    this.encryptor = encryptor;
+    this.inputDir = inputDir;
+    this.outputDir = outputDir;
+    this.exts = FileUtils.getExtensions(extensions);
+    this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMs);
+    this.workers = Executors.newFixedThreadPool(workers, r -> {
+      Thread t = new Thread(r, "rsa-watch-worker");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  public void start() throws IOException {
+    Files.createDirectories(inputDir);
+    watchService = inputDir.getFileSystem().newWatchService();
+    // register before catching up so nothing that lands in between is missed
+    registerTree(inputDir, false);
+    watchThread = new Thread(this::watchLoop, "rsa-watch-events");
+    watchThread.setDaemon(true);
+    watchThread.start();
+
+    BulkEncryptor.Report catchUp = encryptor.encryptChanged(inputDir, outputDir,
+        exts.toArray(String[]::new));
+    LOG.info(String.format("Catch-up: %s", catchUp));
+    manifest = EncryptionManifest.load(EncryptionManifest.locationFor(outputDir));
+
+    long tick = Math.clamp(TimeUnit.NANOSECONDS.toMillis(debounceNanos) / 4, MIN_TICK_MS,
+        MAX_TICK_MS);
+    ticker.scheduleWithFixedDelay(this::dispatchSettled, tick, tick, TimeUnit.MILLISECONDS);
+    LOG.info(String.format("Watching %s for new files (debounce %s ms)",
+        inputDir.toAbsolutePath(), TimeUnit.NANOSECONDS.toMillis(debounceNanos)));
+  }
+
+  @Override
+  public void close() throws IOException {
+    ticker.shutdownNow();
+    if (watchService != null) {
+      watchService.close();
+    }
+    workers.shutdown();
+    try {
+      workers.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (manifest != null) {
+      manifest.save();
+    }
+  }
+
+  private void watchLoop() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          handle(event, dir);
+        }
+        if (!key.reset()) {
+          watchedDirs.remove(key);
+        }
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      // watcher closed
+    }
+  }
+
+  /** One bad event (a directory deleted mid-scan, a permission error) must not end the loop. */
+  private void handle(WatchEvent<?> event, Path dir) {
+    try {
+      if (event.kind() == OVERFLOW) {
+        // events were dropped; rescan so nothing is lost
+        LOG.warning("Watch event overflow, rescanning input directory");
+        registerTree(inputDir, true);
+      } else if (dir != null) {
+        onEvent(dir.resolve((Path) event.context()));
+      }
+    } catch (ClosedWatchServiceException e) {
+      throw e;
+    } catch (IOException | RuntimeException e) {
+      LOG.warning(String.format("Could not handle watch event in %s: %s", dir,
+          e.getMessage()));
+    }
+  }
+
+  private void onEvent(Path path) throws IOException {
+    if (Files.isDirectory(path)) {
+      registerTree(path, true);
+    } else {
+      markPending(path);
+    }
+  }
+
+  private void registerTree(Path root, boolean markFiles) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (!watchedDirs.containsValue(dir)) {
+          try {
+            watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), dir);
+          } catch (NoSuchFileException e) {
+            return FileVisitResult.SKIP_SUBTREE;
+          } catch (IOException e) {
+            LOG.warning(String.format("Cannot watch %s: %s", dir, e.getMessage()));
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (markFiles && attrs.isRegularFile()) {
+          markPending(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        // deleted or unreadable while walking; the rest of the tree is still worth watching
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void markPending(Path path) {
+    if (!accepts(path)) {
+      return;
+    }
+    long now = System.nanoTime();
+    long size = sizeOrMissing(path);
+    pending.merge(path, new Pending(now, now, size),
+        (old, fresh) -> new Pending(old.firstEventNanos(), now, size));
+  }
+
+  private boolean accepts(Path path) {
+    String name = path.getFileName().toString();
+    if (name.startsWith(".") || name.endsWith(".part") || name.endsWith(".tmp")) {
+      return false;
+    }
+    return exts.isEmpty() || exts.contains(FileUtils.getFileExtension(path));
+  }
+
+  private void dispatchSettled() {
+    long now = System.nanoTime();
+    for (Map.Entry<Path, Pending> entry : pending.entrySet()) {
+      Path path = entry.getKey();
+      Pending p = entry.getValue();
+      if (now - p.lastChangeNanos() < debounceNanos || inFlight.contains(path)) {
+        continue;
+      }
+      long size = sizeOrMissing(path);
+      if (size == MISSING) {
+        pending.remove(path, p);
+      } else if (size != p.size()) {
+        // still growing without events (e.g. slow network share): wait another period
+        pending.replace(path, p, new Pending(p.firstEventNanos(), now, size));
+      } else if (pending.remove(path, p) && inFlight.add(path)) {
+        workers.execute(() -> encrypt(path, p.firstEventNanos()));
+      }
+    }
+    if (dirty) {
+      dirty = false;
+      try {
+        manifest.save();
+      } catch (IOException e) {
+        LOG.warning(String.format("Could not save manifest: %s", e.getMessage()));
+      }
+    }
+  }
+
+  private static long sizeOrMissing(Path path) {
+    try {
+      return Files.size(path);
+    } catch (IOException e) {
+      return MISSING;
+    }
+  }
+
+  private void encrypt(Path path, long firstEventNanos) {
+    try {
+      if (encryptor.encryptChanged(inputDir, outputDir, path, manifest)) {
+        dirty = true;
+        LOG.info(String.format("Encrypted %s (%s ms after arrival)", inputDir.relativize(path),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstEventNanos)));
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.warning(String.format("Failed to encrypt %s: %s", path, e.getMessage()));
+    } finally {
+      inFlight.remove(path);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package org.example.services;
+
+import static org.example.utils.AppLogger.LOG;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.example.utils.AsyncRsa;
+import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
+
+public class HttpEncryptionServer {
+
+  public static final int DEFAULT_PORT = 8080;
+  public static final int DEFAULT_MAX_CONCURRENT = 256;
+  private static final long ACQUIRE_TIMEOUT_MS = 2000;
+  private static final int MAX_SINGLE_BODY = 64 * 1024;
+  private static final String TEXT_PLAIN = "text/plain; charset=utf-8";
+  private static final String OCTET_STREAM = "application/octet-stream";
+
+  private interface Handler {
+    void handle(HttpExchange exchange) throws IOException;
+  }
+
+  private final KeyPair keyPair;
+  private final RsaEngine engine;
+  private final AsyncRsa async;
+  private final Semaphore permits;
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  public HttpEncryptionServer(KeyPair keyPair, String host, int port, int maxConcurrent)
+      throws IOException {
+    this(keyPair, host, port, maxConcurrent, new AsyncRsa(RSAUtils.defaultEngine()));
+  }
+
+  /**
+   * Single-block requests run on {@code async}, so request threads only wait for the result;
+   * when its queue is full the request gets a 503 instead of queueing more RSA work. Streaming
+   * requests use the same engine as {@code async}. The server closes {@code async} on
+   * {@link #stop()}.
+   */
+  public HttpEncryptionServer(KeyPair keyPair, String host, int port, int maxConcurrent,
+      AsyncRsa async) throws IOException {
+    if (maxConcurrent < 1) {
+      throw new IllegalArgumentException("Max concurrent requests must be at least 1");
+    }
+    this.keyPair = keyPair;
+    this.engine = async.engine();
+    this.async = async;
+    this.permits = new Semaphore(maxConcurrent);
+    this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+    server.setExecutor(executor);
+    server.createContext("/encrypt", ex -> serve(ex, this::encrypt));
+    server.createContext("/decrypt", ex -> serve(ex, this::decrypt));
+    server.createContext("/encrypt-large", ex -> serve(ex, this::encryptLarge));
+    server.createContext("/decrypt-large", ex -> serve(ex, this::decryptLarge));
+    server.createContext("/public-key", ex -> serve(ex, this::publicKey));
+  }
+
+  public void start() {
+    server.start();
+    InetSocketAddress address = server.getAddress();
+    LOG.info(String.format("HTTP encryption service listening on http://%s:%s",
+        address.getHostString(), address.getPort()));
+  }
+
+  public void stop() {
+    server.stop(1);
+    executor.shutdown();
+    async.close();
+  }
+
+  private void serve(HttpExchange exchange, Handler handler) throws IOException {
+    try {
+      respond(exchange, handler);
+    } catch (IOException | RuntimeException e) {
+      // closing the exchange would end a chunked body with its final chunk and make a
+      // truncated stream look complete; letting the exception out makes HttpServer drop the
+      // connection instead, so the client sees the transfer fail
+      LOG.warning(String.format("Request to %s failed: %s",
+          exchange.getHttpContext().getPath(), e.getMessage()));
+      throw e;
+    }
+    exchange.close();
+  }
+
+  private void respond(HttpExchange exchange, Handler handler) throws IOException {
+    String method = exchange.getRequestMethod();
+    boolean isPublicKey = exchange.getHttpContext().getPath().equals("/public-key");
+    if (!(isPublicKey ? "GET" : "POST").equals(method)) {
+      sendText(exchange, 405, "Method not allowed");
+      return;
+    }
+    try {
+      if (!permits.tryAcquire(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        sendBusy(exchange);
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      sendBusy(exchange);
+      return;
+    }
+    try {
+      handler.handle(exchange);
+    } catch (RejectedExecutionException e) {
+      sendBusy(exchange);
+    } catch (RuntimeException e) {
+      if (exchange.getResponseCode() != -1) {
+        throw e;
+      }
+      sendText(exchange, 400, e.getMessage());
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void encrypt(HttpExchange exchange) throws IOException {
+    String plainText = readSmallBody(exchange);
+    sendText(exchange, 200, await(async.encryptToBase64Async(plainText, keyPair.getPublic())));
+  }
+
+  private void decrypt(HttpExchange exchange) throws IOException {
+    String cipherBase64 = readSmallBody(exchange).trim();
+    sendText(exchange, 200,
+        await(async.decryptFromBase64Async(cipherBase64, keyPair.getPrivate())));
+  }
+
+  private void encryptLarge(HttpExchange exchange) throws IOException {
+    boolean binary = isBinary(exchange);
+    exchange.getResponseHeaders().set("Content-Type", binary ? OCTET_STREAM : TEXT_PLAIN);
+    exchange.sendResponseHeaders(200, 0);
+    // the body is only closed on success, see serve()
+    InputStream in = exchange.getRequestBody();
+    OutputStream out = new BufferedOutputStream(exchange.getResponseBody());
+    if (binary) {
+      engine.encryptLarge(in, out, keyPair.getPublic());
+    } else {
+      engine.encryptLargeToBase64(in, out, keyPair.getPublic());
+    }
+    out.close();
+  }
+
+  private void decryptLarge(HttpExchange exchange) throws IOException {
+    boolean binary = isBinary(exchange);
+    exchange.getResponseHeaders().set("Content-Type", OCTET_STREAM);
+    exchange.sendResponseHeaders(200, 0);
+    InputStream in = exchange.getRequestBody();
+    OutputStream out = new BufferedOutputStream(exchange.getResponseBody());
+    if (binary) {
+      engine.decryptLarge(in, out, keyPair.getPrivate());
+    } else {
+      engine.decryptLargeFromBase64(in, out, keyPair.getPrivate());
+    }
+    out.close();
+  }
+
+  private void publicKey(HttpExchange exchange) throws IOException {
+    sendText(exchange, 200,
+        Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+  }
+
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      // unwrap so serve() sees the same exceptions as a direct call would throw
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static boolean isBinary(HttpExchange exchange) {
+    String query = exchange.getRequestURI().getQuery();
+    return query != null && query.contains("format=binary");
+  }
+
+  private static String readSmallBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      byte[] body = in.readNBytes(MAX_SINGLE_BODY + 1);
+      if (body.length > MAX_SINGLE_BODY) {
+        throw new IllegalArgumentException(
+            "Body too large for single-block mode, use /encrypt-large");
+      }
+      return new String(body, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static void sendBusy(HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().set("Retry-After", "1");
+    sendText(exchange, 503, "Server busy, try again");
+  }
+
+  private static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = (body == null ? "" : body).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", TEXT_PLAIN);
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    if (bytes.length > 0) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    }
+  }
+}
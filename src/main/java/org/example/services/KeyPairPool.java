@@ -0,0 +1,229 @@
+package org.example.services;
+
+import static org.example.utils.AppLogger.LOG;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
+
+public class KeyPairPool {
+
+  public static final int DEFAULT_CAPACITY = 2;
+  private static final long WAIT_FOR_BACKGROUND_SECONDS = 60;
+  private static final long SHUTDOWN_WAIT_SECONDS = 10;
+  private static final String PUBLIC_SUFFIX = ".pub";
+  private static final String PRIVATE_SUFFIX = ".key";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final RsaEngine engine;
+  private final int capacity;
+  private final Path persistDir;
+  private final Map<Integer, BlockingQueue<KeyPair>> pools = new ConcurrentHashMap<>();
+  private final Set<Integer> filling = ConcurrentHashMap.newKeySet();
+  private volatile boolean refill;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "rsa-keypair-pool");
+    t.setDaemon(true);
+    t.setPriority(Thread.MIN_PRIORITY);
+    return t;
+  });
+
+  public KeyPairPool() {
+    this(RSAUtils.defaultEngine(), DEFAULT_CAPACITY, null);
+  }
+
+  /** Pairs are generated with {@code engine}'s provider at whatever size is requested. */
+  public KeyPairPool(RsaEngine engine, int capacity, Path persistDir) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Key pair pool capacity must be at least 1");
+    }
+    this.engine = engine;
+    this.capacity = capacity;
+    this.persistDir = persistDir;
+  }
+
+  /**
+   * Fills the pool for {@code keySize} in the background and keeps {@link #take} topping it up
+   * afterwards. Without a prefetch, {@code take} never starts background work, so one-shot
+   * commands leave no generator thread or half-written pool files behind.
+   */
+  public void prefetch(int keySize) {
+    refill = true;
+    pool(keySize);
+    if (!executor.isShutdown() && filling.add(keySize)) {
+      executor.execute(() -> fill(keySize));
+    }
+  }
+
+  public KeyPair take(int keySize) {
+    BlockingQueue<KeyPair> queue = pool(keySize);
+    KeyPair keyPair = queue.poll();
+    if (keyPair == null && filling.contains(keySize)) {
+      // a pair is already being generated in the background, wait for it instead of racing it
+      try {
+        keyPair = queue.poll(WAIT_FOR_BACKGROUND_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (refill) {
+      prefetch(keySize);
+    }
+    if (keyPair == null) {
+      LOG.info(String.format("Key pair pool for %s bits is empty, generating now...", keySize));
+      return engine.generateKeyPair(keySize);
+    }
+    forget(keySize, keyPair);
+    return keyPair;
+  }
+
+  /** Lets a pair that is being generated finish and be saved, then stops the background thread. */
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private BlockingQueue<KeyPair> pool(int keySize) {
+    return pools.computeIfAbsent(keySize, size -> {
+      BlockingQueue<KeyPair> queue = new ArrayBlockingQueue<>(capacity);
+      restore(size).forEach(queue::offer);
+      return queue;
+    });
+  }
+
+  private void fill(int keySize) {
+    try {
+      BlockingQueue<KeyPair> queue = pool(keySize);
+      while (queue.remainingCapacity() > 0 && !executor.isShutdown()
+          && !Thread.currentThread().isInterrupted()) {
+        KeyPair keyPair = engine.generateKeyPair(keySize);
+        persist(keySize, keyPair);
+        if (!queue.offer(keyPair)) {
+          forget(keySize, keyPair);
+        }
+      }
+    } catch (RuntimeException e) {
+      LOG.warning(String.format("Background key generation failed: %s", e.getMessage()));
+    } finally {
+      filling.remove(keySize);
+    }
+  }
+
+  private void persist(int keySize, KeyPair keyPair) {
+    if (persistDir == null) {
+      return;
+    }
+    String name = fileName(keySize, keyPair);
+    try {
+      // private half first: restore() only picks up pairs whose .pub exists
+      writeAtomically(persistDir.resolve(name + PRIVATE_SUFFIX), keyPair.getPrivate().getEncoded());
+      writeAtomically(persistDir.resolve(name + PUBLIC_SUFFIX), keyPair.getPublic().getEncoded());
+    } catch (IOException e) {
+      LOG.warning(String.format("Could not persist pooled key pair: %s", e.getMessage()));
+    }
+  }
+
+  private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+    Files.createDirectories(target.getParent());
+    Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    Files.write(temp, bytes);
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private void forget(int keySize, KeyPair keyPair) {
+    if (persistDir == null) {
+      return;
+    }
+    String name = fileName(keySize, keyPair);
+    try {
+      Files.deleteIfExists(persistDir.resolve(name + PUBLIC_SUFFIX));
+      Files.deleteIfExists(persistDir.resolve(name + PRIVATE_SUFFIX));
+    } catch (IOException e) {
+      LOG.warning(String.format("Could not remove pooled key pair: %s", e.getMessage()));
+    }
+  }
+
+  private List<KeyPair> restore(int keySize) {
+    if (persistDir == null || !Files.isDirectory(persistDir)) {
+      return List.of();
+    }
+    String prefix = keySize + "-";
+    List<Path> entries;
+    try (Stream<Path> files = Files.list(persistDir)) {
+      entries = files.filter(p -> p.getFileName().toString().startsWith(prefix)).sorted().toList();
+    } catch (IOException e) {
+      LOG.warning(String.format("Could not read key pair pool: %s", e.getMessage()));
+      return List.of();
+    }
+    List<KeyPair> restored = new ArrayList<>();
+    for (Path path : entries) {
+      String name = path.getFileName().toString();
+      if (name.endsWith(TEMP_SUFFIX) || (name.endsWith(PRIVATE_SUFFIX)
+          && !Files.exists(sibling(path, PRIVATE_SUFFIX, PUBLIC_SUFFIX)))) {
+        // left behind by a process that exited mid-write
+        deleteQuietly(path);
+      } else if (name.endsWith(PUBLIC_SUFFIX) && restored.size() < capacity) {
+        KeyPair keyPair = load(path);
+        if (keyPair != null) {
+          restored.add(keyPair);
+        }
+      }
+    }
+    return restored;
+  }
+
+  private KeyPair load(Path publicKeyPath) {
+    Path privateKeyPath = sibling(publicKeyPath, PUBLIC_SUFFIX, PRIVATE_SUFFIX);
+    try {
+      PublicKey publicKey = RSAUtils.loadPublicKey(publicKeyPath);
+      PrivateKey privateKey = RSAUtils.loadPrivateKey(privateKeyPath);
+      return new KeyPair(publicKey, privateKey);
+    } catch (RuntimeException e) {
+      LOG.warning(String.format("Removing unreadable pooled key %s", publicKeyPath.getFileName()));
+      deleteQuietly(publicKeyPath);
+      deleteQuietly(privateKeyPath);
+      return null;
+    }
+  }
+
+  private static Path sibling(Path path, String suffix, String otherSuffix) {
+    String name = path.getFileName().toString();
+    return path.resolveSibling(name.substring(0, name.length() - suffix.length()) + otherSuffix);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOG.warning(String.format("Could not remove pooled key file %s", path));
+    }
+  }
+
+  private static String fileName(int keySize, KeyPair keyPair) {
+    return keySize + "-" + RSAUtils.fingerprint(keyPair.getPublic()).substring(0, 16);
+  }
+}
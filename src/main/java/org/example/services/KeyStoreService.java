@@ -2,42 +2,96 @@ package org.example.services;
 
 import static org.example.utils.AppLogger.LOG;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.utils.KeyEvent;
+import org.example.utils.KeyTag;
 import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
 
+/**
+ * Holds every key pair ever used, indexed by key ID ({@link KeyTag#idOf}) in
+ * {@code data/keys/index.tsv}: {@code id | fingerprint | bits | created | status}. The index is
+ * read up front, but a pair is only parsed the first time it is asked for and then cached.
+ * {@code public.key} / {@code private.key} always mirror the active pair so the command-line
+ * defaults keep working; rotating writes a new active pair and leaves older ones in place.
+ */
 public class KeyStoreService {
 
+  public enum Status { ACTIVE, RETIRED }
+
+  public record KeyInfo(String id, String fingerprint, int keySize, long createdMillis,
+                        Status status) {}
+
+  private static final int FIELDS = 5;
+  private static final String PUBLIC_SUFFIX = ".pub";
+  private static final String PRIVATE_SUFFIX = ".key";
+
   private final Path publicKeyPath;
   private final Path privateKeyPath;
   private final Path keyDir;
+  private final Path indexPath;
+  private final KeyPairPool pool;
+  private final RsaEngine engine;
+  private final Map<String, KeyInfo> index = new ConcurrentHashMap<>();
+  private final Map<String, KeyPair> loaded = new ConcurrentHashMap<>();
+  private volatile String activeId;
 
   public KeyStoreService() {
-    this.keyDir = Path.of("data", "keys");
+    this(RSAUtils.defaultEngine());
+  }
+
+  public KeyStoreService(RsaEngine engine) {
+    this(Path.of("data", "keys"), engine);
+  }
+
+  public KeyStoreService(Path keyDir, RsaEngine engine) {
+    this.engine = engine;
+    this.keyDir = keyDir;
     this.publicKeyPath = keyDir.resolve("public.key");
     this.privateKeyPath = keyDir.resolve("private.key");
+    this.indexPath = keyDir.resolve("index.tsv");
+    this.pool = new KeyPairPool(engine, KeyPairPool.DEFAULT_CAPACITY, keyDir.resolve("pool"));
+    readIndex();
   }
 
-  public KeyPair loadOrCreate(int keySize){
-    try {
+  public boolean hasKeys() {
+    return activeId != null || (Files.exists(publicKeyPath) && Files.exists(privateKeyPath));
+  }
+
+  public void prefetch(int keySize) {
+    pool.prefetch(keySize);
+  }
+
+  public void shutdown() {
+    pool.shutdown();
+  }
 
+  public synchronized KeyPair loadOrCreate(int keySize) {
+    try {
       Files.createDirectories(keyDir);
-      KeyPair keyPair;
-
-      if (!Files.exists(publicKeyPath) || !Files.exists(privateKeyPath)) {
-        LOG.info("No RSA keys found. Generating new key pair...");
-        keyPair = RSAUtils.generateKeyPair(keySize);
-        RSAUtils.saveKeyToFile(keyPair.getPublic(), publicKeyPath);
-        RSAUtils.saveKeyToFile(keyPair.getPrivate(), privateKeyPath);
-        return keyPair;
+      if (hasUnindexedPair()) {
+        return importLegacy();
       }
-      LOG.info("Loading RSA keys from disk...");
-      PublicKey publicKey = RSAUtils.loadPublicKey(publicKeyPath);
-      PrivateKey privateKey = RSAUtils.loadPrivateKey(privateKeyPath);
-      return new KeyPair(publicKey, privateKey);
+      if (activeId != null) {
+        LOG.info(String.format("Loading active RSA key %s...", activeId));
+        return keyPair(activeId);
+      }
+      LOG.info("No RSA keys found. Generating new key pair...");
+      return add(pool.take(keySize));
 
     } catch (Exception e) {
       throw new RuntimeException("Key load/create failed", e);
@@ -45,6 +99,173 @@ public class KeyStoreService {
   }
 
   public KeyPair loadOrCreate() {
-    return loadOrCreate(RSAUtils.DEFAULT_KEY_SIZE);
+    return loadOrCreate(engine.keySize());
+  }
+
+  /**
+   * Generates a new active key pair. Older pairs stay in the index, so files encrypted with
+   * them still decrypt.
+   */
+  public synchronized KeyPair rotate(int keySize) {
+    KeyEvent event = new KeyEvent();
+    event.begin();
+    try {
+      Files.createDirectories(keyDir);
+      if (hasUnindexedPair()) {
+        // public.key / private.key are about to be overwritten, keep the old pair first
+        importLegacy();
+      }
+      KeyPair keyPair = add(pool.take(keySize));
+      LOG.info(String.format("Rotated to RSA key %s", activeId));
+      event.complete(KeyEvent.Action.ROTATE, keyPair.getPublic(), keyDir, true);
+      return keyPair;
+    } catch (IOException e) {
+      event.complete(KeyEvent.Action.ROTATE, null, keyDir, false);
+      throw new UncheckedIOException("Key rotation failed", e);
+    }
+  }
+
+  public String activeId() {
+    return activeId;
+  }
+
+  /** The pair for {@code keyId}, parsed from disk on first use. */
+  public KeyPair keyPair(String keyId) {
+    KeyInfo info = index.get(keyId);
+    if (info == null) {
+      throw new IllegalArgumentException("Unknown key ID: " + keyId);
+    }
+    return loaded.computeIfAbsent(keyId, id -> {
+      Path publicPath = keyDir.resolve(id + PUBLIC_SUFFIX);
+      KeyEvent event = new KeyEvent();
+      event.begin();
+      try {
+        PublicKey publicKey = RSAUtils.loadPublicKey(publicPath);
+        PrivateKey privateKey = RSAUtils.loadPrivateKey(keyDir.resolve(id + PRIVATE_SUFFIX));
+        event.complete(KeyEvent.Action.LOAD, publicKey, publicPath, true);
+        return new KeyPair(publicKey, privateKey);
+      } catch (RuntimeException e) {
+        event.complete(KeyEvent.Action.LOAD, null, publicPath, false);
+        throw e;
+      }
+    });
+  }
+
+  /** The pair whose public key has {@code fingerprint}, as recorded in container headers. */
+  public KeyPair keyPairByFingerprint(String fingerprint) {
+    KeyInfo info = index.get(KeyTag.idOf(fingerprint));
+    if (info == null || !info.fingerprint().equals(fingerprint)) {
+      throw new IllegalArgumentException("No key with fingerprint " + fingerprint);
+    }
+    return keyPair(info.id());
+  }
+
+  public boolean contains(String keyId) {
+    return index.containsKey(keyId);
+  }
+
+  /** All known keys, oldest first. */
+  public List<KeyInfo> keys() {
+    List<KeyInfo> keys = new ArrayList<>(index.values());
+    keys.sort(Comparator.comparingLong(KeyInfo::createdMillis));
+    return keys;
+  }
+
+  public RsaEngine engine() {
+    return engine;
+  }
+
+  /**
+   * True if {@code public.key} / {@code private.key} hold a pair the index does not know, e.g.
+   * one written by an older version or by hand. Such a pair must be imported before anything
+   * overwrites the mirror files.
+   */
+  private boolean hasUnindexedPair() {
+    if (!Files.exists(publicKeyPath) || !Files.exists(privateKeyPath)) {
+      return false;
+    }
+    return !index.containsKey(KeyTag.idOf(RSAUtils.loadPublicKey(publicKeyPath)));
+  }
+
+  private KeyPair importLegacy() throws IOException {
+    LOG.info("Importing existing RSA keys into the key index...");
+    KeyEvent event = new KeyEvent();
+    event.begin();
+    try {
+      PublicKey publicKey = RSAUtils.loadPublicKey(publicKeyPath);
+      PrivateKey privateKey = RSAUtils.loadPrivateKey(privateKeyPath);
+      KeyPair keyPair = add(new KeyPair(publicKey, privateKey));
+      event.complete(KeyEvent.Action.IMPORT, publicKey, publicKeyPath, true);
+      return keyPair;
+    } catch (IOException | RuntimeException e) {
+      event.complete(KeyEvent.Action.IMPORT, null, publicKeyPath, false);
+      throw e;
+    }
+  }
+
+  private KeyPair add(KeyPair keyPair) throws IOException {
+    String fingerprint = RSAUtils.fingerprint(keyPair.getPublic());
+    String id = KeyTag.idOf(fingerprint);
+    RSAUtils.saveKeyToFile(keyPair.getPublic(), keyDir.resolve(id + PUBLIC_SUFFIX));
+    RSAUtils.saveKeyToFile(keyPair.getPrivate(), keyDir.resolve(id + PRIVATE_SUFFIX));
+    RSAUtils.saveKeyToFile(keyPair.getPublic(), publicKeyPath);
+    RSAUtils.saveKeyToFile(keyPair.getPrivate(), privateKeyPath);
+
+    String previous = activeId;
+    if (previous != null) {
+      index.computeIfPresent(previous, (k, info) -> new KeyInfo(info.id(), info.fingerprint(),
+          info.keySize(), info.createdMillis(), Status.RETIRED));
+    }
+    index.put(id, new KeyInfo(id, fingerprint, RSAUtils.blockSize(keyPair.getPublic()) * 8,
+        System.currentTimeMillis(), Status.ACTIVE));
+    loaded.put(id, keyPair);
+    activeId = id;
+    writeIndex();
+    return keyPair;
+  }
+
+  private void readIndex() {
+    if (!Files.exists(indexPath)) {
+      return;
+    }
+    try {
+      for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+        if (line.isBlank() || line.startsWith("#")) {
+          continue;
+        }
+        String[] f = line.split("\t");
+        if (f.length != FIELDS || !KeyTag.isValidId(f[0])) {
+          LOG.warning(String.format("Ignoring malformed key index line in %s", indexPath));
+          continue;
+        }
+        try {
+          KeyInfo info = new KeyInfo(f[0], f[1], Integer.parseInt(f[2]), Long.parseLong(f[3]),
+              Status.valueOf(f[4]));
+          index.put(info.id(), info);
+          if (info.status() == Status.ACTIVE) {
+            activeId = info.id();
+          }
+        } catch (IllegalArgumentException e) {
+          LOG.warning(String.format("Ignoring malformed key index line in %s", indexPath));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read key index " + indexPath, e);
+    }
+  }
+
+  private void writeIndex() throws IOException {
+    Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+      writer.write("# id\tfingerprint\tbits\tcreated\tstatus");
+      writer.newLine();
+      for (KeyInfo k : keys()) {
+        writer.write(String.join("\t", k.id(), k.fingerprint(), Integer.toString(k.keySize()),
+            Long.toString(k.createdMillis()), k.status().name()));
+        writer.newLine();
+      }
+    }
+    Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
   }
 }
@@ -2,18 +2,36 @@ package org.example.services;
 
 import static org.example.utils.AppLogger.LOG;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import org.example.parsers.FileInputParser;
 import org.example.parsers.InputParser;
+import org.example.utils.CipherCache;
+import org.example.utils.CipherContainer;
+import org.example.utils.Compression;
 import org.example.utils.DirectoryFilePicker;
+import org.example.utils.FileIoEvent;
+import org.example.utils.FileUtils;
+import org.example.utils.HybridUtils;
+import org.example.utils.KeyTag;
+import org.example.utils.MultiRecipientUtils;
+import org.example.utils.OperationMetrics;
 import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
+import org.example.utils.SeekableDecryptor;
 
 public class RsaActions {
 
@@ -23,14 +41,38 @@ public class RsaActions {
   private static final String NO_CIPHERTEXT_PROVIDED = "No ciphertext provided.";
   private static final String DECRYPTED_PLAINTEXT = "\nDecrypted plaintext:";
 
+  private interface Decryption {
+    void writeTo(OutputStream out) throws IOException;
+  }
 
   private final Scanner sc;
   private final DirectoryFilePicker picker;
   private final Path inputDir = Path.of("data","input");
   private final Path outputDir = Path.of("data","output");
+  private final Path decryptedDir = Path.of("data","decrypted");
+  private final ConfigRepl.OutputFormat outputFormat;
+  private final RsaEngine engine;
+  private final KeyStoreService keyStore;
 
   public RsaActions(Scanner sc, DirectoryFilePicker picker) {
-    this.sc = sc; this.picker = picker;
+    this(sc, picker, ConfigRepl.OutputFormat.BASE64);
+  }
+
+  public RsaActions(Scanner sc, DirectoryFilePicker picker,
+      ConfigRepl.OutputFormat outputFormat) {
+    this(sc, picker, outputFormat, RSAUtils.defaultEngine());
+  }
+
+  public RsaActions(Scanner sc, DirectoryFilePicker picker,
+      ConfigRepl.OutputFormat outputFormat, RsaEngine engine) {
+    this(sc, picker, outputFormat, engine, null);
+  }
+
+  /** With a {@code keyStore}, files are decrypted with whichever key they are tagged for. */
+  public RsaActions(Scanner sc, DirectoryFilePicker picker,
+      ConfigRepl.OutputFormat outputFormat, RsaEngine engine, KeyStoreService keyStore) {
+    this.sc = sc; this.picker = picker; this.outputFormat = outputFormat; this.engine = engine;
+    this.keyStore = keyStore;
   }
   public void encryptFromTerminal(KeyPair keyPair){
     LOG.info("");
@@ -41,10 +83,10 @@ public class RsaActions {
       LOG.info(NO_TEXT_PROVIDED);
       return;
     }
-    String cipherBase64 = RSAUtils.encryptToBase64(plainText, keyPair.getPublic());
+    String cipherBase64 = engine.encryptToBase64(plainText, keyPair.getPublic());
     LOG.info(ENCRYPTED_BASE64);
     LOG.info(cipherBase64);
-    String decrypted = RSAUtils.decryptFromBase64(cipherBase64, keyPair.getPrivate());
+    String decrypted = engine.decryptFromBase64(cipherBase64, keyPair.getPrivate());
     LOG.info("\nDecrypted (for verification):");
     LOG.info(decrypted);
   }
@@ -65,12 +107,21 @@ public class RsaActions {
     String plainText = fileParser.parseString();
     LOG.info("\n--- Plaintext from file ---");
     LOG.info(plainText);
-    String cipherBase64 = RSAUtils.encryptToBase64(plainText, keyPair.getPublic());
-    LOG.info(ENCRYPTED_BASE64);
-    LOG.info(cipherBase64);
     Files.createDirectories(outputDir);
     Path outFile = outputDir.resolve(chosen.getFileName().toString() + ".enc");
-    Files.writeString(outFile, cipherBase64);
+    if (outputFormat == ConfigRepl.OutputFormat.BINARY) {
+      try (InputStream in = fileParser.parseStream()) {
+        writeContainer(in, outFile, keyPair);
+      }
+    } else {
+      String cipherBase64 = engine.encryptToBase64(plainText, keyPair.getPublic());
+      LOG.info(ENCRYPTED_BASE64);
+      LOG.info(cipherBase64);
+      try (OutputStream out = openOutput(outFile)) {
+        KeyTag.write(out, KeyTag.idOf(keyPair.getPublic()));
+        out.write(cipherBase64.getBytes(StandardCharsets.US_ASCII));
+      }
+    }
     LOG.info(String.format("\nEncrypted text was written to: %s" , outFile.toAbsolutePath()));
   }
 
@@ -84,7 +135,7 @@ public class RsaActions {
       return;
     }
     try {
-      String decrypted = RSAUtils.decryptFromBase64(cipherBase64, keyPair.getPrivate());
+      String decrypted = engine.decryptFromBase64(cipherBase64, keyPair.getPrivate());
       LOG.info(DECRYPTED_PLAINTEXT);
       LOG.info(decrypted);
     } catch (RuntimeException e) {
@@ -104,8 +155,13 @@ public class RsaActions {
       LOG.info(NO_FILE_SELECTED);
       return;
     }
-    String cipherBase64 = Files.readString(chosen);
-    String decrypted = RSAUtils.decryptFromBase64(cipherBase64, keyPair.getPrivate());
+    if (CipherContainer.isContainer(chosen)) {
+      decryptContainer(chosen, keyPair);
+      return;
+    }
+    String cipherBase64 = KeyTag.strip(new FileInputParser(chosen).parseString());
+    String decrypted = engine.decryptFromBase64(cipherBase64,
+        keyPairFor(chosen, keyPair).getPrivate());
     LOG.info(DECRYPTED_PLAINTEXT);
     LOG.info(decrypted);
   }
@@ -130,7 +186,7 @@ public class RsaActions {
 
     try {
       PrivateKey privateKey = RSAUtils.decodePrivateKeyFromBase64(privB64);
-      String decrypted = RSAUtils.decryptFromBase64(cipherBase64, privateKey);
+      String decrypted = engine.decryptFromBase64(cipherBase64, privateKey);
       LOG.info(DECRYPTED_PLAINTEXT);
       LOG.info(decrypted);
     } catch (RuntimeException e) {
@@ -159,7 +215,7 @@ public class RsaActions {
 
     try {
       PublicKey publicKey = RSAUtils.decodePublicKeyFromBase64(pubB64);
-      String cipherBase64 = RSAUtils.encryptToBase64(plainText, publicKey);
+      String cipherBase64 = engine.encryptToBase64(plainText, publicKey);
       LOG.info(ENCRYPTED_BASE64);
       LOG.info(cipherBase64);
     } catch (RuntimeException e) {
@@ -176,12 +232,12 @@ public class RsaActions {
       LOG.info(NO_TEXT_PROVIDED);
       return;
     }
-    String cipherBase64 = RSAUtils.encryptLargeToBase64(plainText, keyPair.getPublic());
+    String cipherBase64 = engine.encryptLargeToBase64(plainText, keyPair.getPublic());
     LOG.info("\nEncrypted (Base64, chunked):");
     LOG.info(cipherBase64);
 
     // Optional verification
-    String decrypted = RSAUtils.decryptLargeFromBase64(cipherBase64, keyPair.getPrivate());
+    String decrypted = engine.decryptLargeFromBase64(cipherBase64, keyPair.getPrivate());
     LOG.info("\nDecrypted (for verification, chunked):");
     LOG.info(decrypted);
   }
@@ -198,16 +254,22 @@ public class RsaActions {
       LOG.info(NO_FILE_SELECTED);
       return;
     }
-    FileInputParser fileParser = new FileInputParser(chosen);
-    String plainText = fileParser.parseString();
-    LOG.info("\n--- Plaintext from file ---");
-    LOG.info(plainText);
-    String cipherBase64 = RSAUtils.encryptLargeToBase64(plainText, keyPair.getPublic());
-    LOG.info("\nEncrypted (Base64, chunked):");
-    LOG.info(cipherBase64);
     Files.createDirectories(outputDir);
     Path outFile = outputDir.resolve(chosen.getFileName().toString() + ".large.enc");
-    Files.writeString(outFile, cipherBase64);
+    if (outputFormat == ConfigRepl.OutputFormat.BINARY) {
+      logContainer(CipherContainer.encryptMapped(chosen, outFile, keyPair.getPublic(), engine));
+    } else {
+      try (InputStream in = new FileInputParser(chosen).parseStream();
+          OutputStream out = openOutput(outFile)) {
+        KeyTag.write(out, KeyTag.idOf(keyPair.getPublic()));
+        Compression.Stats stats = engine.encryptLargeToBase64(in, out, keyPair.getPublic());
+        if (engine.compressionLevel() != Compression.OFF) {
+          LOG.info(String.format("\nCompressed before encryption: %s", stats));
+        }
+      }
+    }
+    LOG.info(String.format("\nEncrypted %s (%s) in chunks", chosen.getFileName(),
+        FileUtils.getFileSize(Files.size(chosen))));
     LOG.info(String.format("\nEncrypted text was written to: %s", outFile.toAbsolutePath()));
   }
 
@@ -221,7 +283,7 @@ public class RsaActions {
       return;
     }
     try {
-      String decrypted = RSAUtils.decryptLargeFromBase64(cipherBase64, keyPair.getPrivate());
+      String decrypted = engine.decryptLargeFromBase64(cipherBase64, keyPair.getPrivate());
       LOG.info("\nDecrypted plaintext (chunked):");
       LOG.info(decrypted);
     } catch (RuntimeException e) {
@@ -241,9 +303,331 @@ public class RsaActions {
       LOG.info(NO_FILE_SELECTED);
       return;
     }
-    String cipherBase64 = Files.readString(chosen);
-    String decrypted = RSAUtils.decryptLargeFromBase64(cipherBase64, keyPair.getPrivate());
-    LOG.info("\nDecrypted plaintext (chunked):");
-    LOG.info(decrypted);
+    if (CipherContainer.isContainer(chosen)) {
+      decryptContainer(chosen, keyPair);
+      return;
+    }
+    PrivateKey privateKey = keyPairFor(chosen, keyPair).getPrivate();
+    writeDecrypted(chosen, out -> {
+      try (InputStream in = new FileInputParser(chosen).parseStream()) {
+        engine.decryptLargeFromBase64(in, out, privateKey);
+      }
+    });
+  }
+
+  public void decryptRangeFromFile(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Decrypt a byte range of a chunked ciphertext file ---");
+    if (!Files.isDirectory(outputDir)) {
+      LOG.info(String.format("Output directory does not exist: %s" , outputDir.toAbsolutePath()));
+      return;
+    }
+    Path chosen = picker.chooseFile(outputDir, "enc");
+    if (chosen == null) {
+      LOG.info(NO_FILE_SELECTED);
+      return;
+    }
+    System.out.print("Plaintext offset (bytes): ");
+    String offset = sc.nextLine().trim();
+    System.out.print("Length (bytes): ");
+    String length = sc.nextLine().trim();
+    try {
+      byte[] range = SeekableDecryptor.decryptRange(chosen, Long.parseLong(offset),
+          Integer.parseInt(length), keyPairFor(chosen, keyPair).getPrivate(), engine);
+      LOG.info(String.format("\nDecrypted %s byte(s):", range.length));
+      LOG.info(new String(range, StandardCharsets.UTF_8));
+    } catch (NumberFormatException e) {
+      LOG.info("Offset and length must be numbers.");
+    } catch (RuntimeException e) {
+      LOG.info(String.format("Failed to decrypt: %s" , e.getMessage()));
+    }
+  }
+
+  private void writeContainer(InputStream in, Path outFile, KeyPair keyPair) throws IOException {
+    logContainer(CipherContainer.encrypt(in, outFile, keyPair.getPublic(), engine));
+  }
+
+  private void logContainer(CipherContainer.Header header) {
+    LOG.info(String.format("\nBinary container: %s blocks of %s bytes (%s)",
+        header.blockCount(), header.blockSize(), header.transformation()));
+  }
+
+  private void decryptContainer(Path chosen, KeyPair current) throws IOException {
+    KeyPair keyPair = keyPairFor(chosen, current);
+    CipherContainer.Header header = CipherContainer.readHeader(chosen);
+    if (!header.keyFingerprint().equals(RSAUtils.fingerprint(keyPair.getPublic()))) {
+      LOG.info(String.format("File was encrypted for a different key (fingerprint %s)",
+          header.keyFingerprint()));
+      return;
+    }
+    writeDecrypted(chosen, out -> CipherContainer.decrypt(chosen, out, keyPair.getPrivate(),
+        engine));
+  }
+
+  /**
+   * Streams the plaintext of {@code chosen} into data/decrypted and logs only where it went, so
+   * memory use does not grow with the file. A partial output is removed if decryption fails.
+   */
+  private void writeDecrypted(Path chosen, Decryption decryption) throws IOException {
+    Files.createDirectories(decryptedDir);
+    String name = chosen.getFileName().toString();
+    Path outFile = decryptedDir.resolve(
+        (name.endsWith(".enc") ? name.substring(0, name.length() - ".enc".length()) : name)
+            + ".dec");
+    try (OutputStream out = openOutput(outFile)) {
+      decryption.writeTo(out);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(outFile);
+      throw e;
+    }
+    LOG.info(String.format("\nDecrypted %s (%s) was written to: %s", chosen.getFileName(),
+        FileUtils.getFileSize(Files.size(outFile)), outFile.toAbsolutePath()));
+  }
+
+  private static OutputStream openOutput(Path outFile) throws IOException {
+    return new BufferedOutputStream(FileIoEvent.writing(outFile, Files.newOutputStream(outFile)));
+  }
+
+  /**
+   * The pair {@code file} was encrypted for: looked up by container fingerprint or key tag, so
+   * files written before a rotation keep decrypting. Falls back to {@code current} for untagged
+   * files, tags the keystore does not know, or when there is no keystore.
+   */
+  private KeyPair keyPairFor(Path file, KeyPair current) throws IOException {
+    if (keyStore == null) {
+      return current;
+    }
+    if (CipherContainer.isContainer(file)) {
+      String fingerprint = CipherContainer.readHeader(file).keyFingerprint();
+      return keyStore.contains(KeyTag.idOf(fingerprint))
+          ? keyStore.keyPairByFingerprint(fingerprint) : current;
+    }
+    String keyId = KeyTag.read(file);
+    return keyId != null && keyStore.contains(keyId) ? keyStore.keyPair(keyId) : current;
+  }
+
+  public void listKeys() {
+    LOG.info("");
+    LOG.info("--- Key pairs in data/keys ---");
+    if (keyStore == null) {
+      LOG.info("No key store configured.");
+      return;
+    }
+    for (KeyStoreService.KeyInfo key : keyStore.keys()) {
+      LOG.info(String.format("  %s  %s bits  %s  %s", key.id(), key.keySize(),
+          Instant.ofEpochMilli(key.createdMillis()), key.status()));
+    }
+  }
+
+  /** Returns the new active pair, or {@code current} when rotation was cancelled. */
+  public KeyPair rotateKey(KeyPair current) {
+    LOG.info("");
+    LOG.info("--- Rotate to a new key pair ---");
+    if (keyStore == null) {
+      LOG.info("No key store configured.");
+      return current;
+    }
+    System.out.print(String.format("Generate a new %s-bit active key? (y/N): ", engine.keySize()));
+    if (!sc.nextLine().trim().equalsIgnoreCase("y")) {
+      LOG.info("Rotation cancelled.");
+      return current;
+    }
+    KeyPair rotated = keyStore.rotate(engine.keySize());
+    LOG.info(String.format("New active key: %s (older keys still decrypt their files)",
+        keyStore.activeId()));
+    return rotated;
+  }
+
+  public void encryptHybridFromTerminal(KeyPair keyPair) {
+    LOG.info("");
+    LOG.info("--- Encrypt text from terminal (hybrid RSA + AES-GCM) ---");
+    InputParser parser = new InputParser(sc);
+    String plainText = parser.parse();
+    if (plainText == null || plainText.isBlank()) {
+      LOG.info(NO_TEXT_PROVIDED);
+      return;
+    }
+    String cipherBase64 = HybridUtils.encryptToBase64(plainText, keyPair.getPublic(), engine);
+    LOG.info("\nEncrypted (Base64, hybrid):");
+    LOG.info(cipherBase64);
+  }
+
+  public void encryptHybridFromFile(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Encrypt file (hybrid RSA + AES-GCM) ---");
+    if (!Files.isDirectory(inputDir)) {
+      LOG.info(String.format("Input directory does not exist: %s" , inputDir.toAbsolutePath()));
+      return;
+    }
+    Path chosen = picker.chooseFile(inputDir, "txt");
+    if (chosen == null) {
+      LOG.info(NO_FILE_SELECTED);
+      return;
+    }
+    Files.createDirectories(outputDir);
+    Path outFile = outputDir.resolve(chosen.getFileName().toString() + ".hybrid.enc");
+    try (InputStream in = new FileInputParser(chosen).parseStream();
+        OutputStream out = openOutput(outFile)) {
+      KeyTag.write(out, KeyTag.idOf(keyPair.getPublic()));
+      HybridUtils.encryptToBase64(in, out, keyPair.getPublic(), engine);
+    }
+    LOG.info(String.format("\nEncrypted %s (%s) with a wrapped AES session key",
+        chosen.getFileName(), FileUtils.getFileSize(Files.size(chosen))));
+    LOG.info(String.format("\nEncrypted text was written to: %s", outFile.toAbsolutePath()));
+  }
+
+  public void decryptHybridFromTerminal(KeyPair keyPair) {
+    LOG.info("");
+    LOG.info("--- Decrypt hybrid ciphertext from terminal (RSA + AES-GCM) ---");
+    System.out.print("Paste Base64 ciphertext: ");
+    String cipherBase64 = sc.nextLine().trim();
+    if (cipherBase64.isEmpty()) {
+      LOG.info(NO_CIPHERTEXT_PROVIDED);
+      return;
+    }
+    try {
+      String decrypted = HybridUtils.decryptFromBase64(cipherBase64, keyPair.getPrivate(), engine);
+      LOG.info(DECRYPTED_PLAINTEXT);
+      LOG.info(decrypted);
+    } catch (RuntimeException e) {
+      LOG.info(String.format("Failed to decrypt: %s" , e.getMessage()));
+    }
+  }
+
+  public void decryptHybridFromFile(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Decrypt hybrid ciphertext from file (RSA + AES-GCM) ---");
+    if (!Files.isDirectory(outputDir)) {
+      LOG.info(String.format("Output directory does not exist: %s" , outputDir.toAbsolutePath()));
+      return;
+    }
+    Path chosen = picker.chooseFile(outputDir, "enc");
+    if (chosen == null) {
+      LOG.info(NO_FILE_SELECTED);
+      return;
+    }
+    PrivateKey privateKey = keyPairFor(chosen, keyPair).getPrivate();
+    writeDecrypted(chosen, out -> {
+      try (InputStream in = new FileInputParser(chosen).parseStream()) {
+        HybridUtils.decryptFromBase64(in, out, privateKey, engine);
+      }
+    });
+  }
+
+  public void encryptMultiRecipientFromFile(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Encrypt file once for several recipients (RSA-wrapped AES-GCM) ---");
+    if (!Files.isDirectory(inputDir)) {
+      LOG.info(String.format("Input directory does not exist: %s" , inputDir.toAbsolutePath()));
+      return;
+    }
+    Path chosen = picker.chooseFile(inputDir, "txt");
+    if (chosen == null) {
+      LOG.info(NO_FILE_SELECTED);
+      return;
+    }
+    System.out.print("Recipient public key files, comma-separated (your own key is included): ");
+    List<PublicKey> recipients = new ArrayList<>();
+    recipients.add(keyPair.getPublic());
+    try {
+      for (String name : sc.nextLine().split(",")) {
+        if (!name.isBlank()) {
+          recipients.add(RSAUtils.loadPublicKey(Path.of(name.trim())));
+        }
+      }
+    } catch (RuntimeException e) {
+      LOG.info(String.format("Failed to load recipient key: %s", e.getMessage()));
+      return;
+    }
+    Files.createDirectories(outputDir);
+    Path outFile = outputDir.resolve(chosen.getFileName().toString() + ".multi.enc");
+    try (InputStream in = new FileInputParser(chosen).parseStream();
+        OutputStream out = openOutput(outFile)) {
+      KeyTag.write(out, KeyTag.idOf(keyPair.getPublic()));
+      MultiRecipientUtils.encryptToBase64(in, out, recipients, engine);
+    }
+    LOG.info(String.format("\nEncrypted %s (%s) once for these recipients:",
+        chosen.getFileName(), FileUtils.getFileSize(Files.size(chosen))));
+    for (PublicKey recipient : recipients) {
+      LOG.info(String.format("  %s", RSAUtils.fingerprint(recipient)));
+    }
+    LOG.info(String.format("\nEncrypted text was written to: %s", outFile.toAbsolutePath()));
+  }
+
+  public void decryptMultiRecipientFromFile(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Decrypt multi-recipient ciphertext from file (RSA + AES-GCM) ---");
+    if (!Files.isDirectory(outputDir)) {
+      LOG.info(String.format("Output directory does not exist: %s" , outputDir.toAbsolutePath()));
+      return;
+    }
+    Path chosen = picker.chooseFile(outputDir, "enc");
+    if (chosen == null) {
+      LOG.info(NO_FILE_SELECTED);
+      return;
+    }
+    PrivateKey privateKey = keyPairFor(chosen, keyPair).getPrivate();
+    try {
+      writeDecrypted(chosen, out -> {
+        try (InputStream in = new FileInputParser(chosen).parseStream()) {
+          MultiRecipientUtils.decryptFromBase64(in, out, privateKey, engine);
+        }
+      });
+    } catch (RuntimeException e) {
+      LOG.info(String.format("Failed to decrypt: %s" , e.getMessage()));
+    }
+  }
+
+  public void bulkEncrypt(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Bulk encrypt new/changed files from data/input (chunked RSA) ---");
+    if (!Files.isDirectory(inputDir)) {
+      LOG.info(String.format("Input directory does not exist: %s" , inputDir.toAbsolutePath()));
+      return;
+    }
+    logReport(new BulkEncryptor(keyPair, outputFormat, BulkEncryptor.DEFAULT_WORKERS, engine)
+        .encryptChanged(inputDir, outputDir, "txt"));
+  }
+
+  public void bulkDecrypt(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Bulk decrypt data/output into data/decrypted (chunked RSA) ---");
+    if (!Files.isDirectory(outputDir)) {
+      LOG.info(String.format("Output directory does not exist: %s" , outputDir.toAbsolutePath()));
+      return;
+    }
+    logReport(new BulkEncryptor(keyPair, outputFormat, BulkEncryptor.DEFAULT_WORKERS, engine,
+        keyStore).decryptAll(outputDir, decryptedDir));
+  }
+
+  public void watchInput(KeyPair keyPair) throws IOException {
+    LOG.info("");
+    LOG.info("--- Watch data/input and encrypt new files into data/output ---");
+    int workers = Runtime.getRuntime().availableProcessors();
+    BulkEncryptor encryptor = new BulkEncryptor(keyPair, outputFormat, workers, engine);
+    try (FolderWatcher watcher = new FolderWatcher(encryptor, inputDir, outputDir, workers,
+        FolderWatcher.DEFAULT_DEBOUNCE_MS, "txt")) {
+      watcher.start();
+      System.out.print("Press Enter to stop watching: ");
+      sc.nextLine();
+    }
+    LOG.info("Stopped watching.");
+  }
+
+  private void logReport(BulkEncryptor.Report report) {
+    LOG.info(String.format("\n%s", report));
+    for (BulkEncryptor.Failure failure : report.failures()) {
+      LOG.info(String.format("  FAILED %s: %s", failure.file(), failure.message()));
+    }
+  }
+
+  public void showMetrics() {
+    LOG.info("");
+    LOG.info("--- Operation metrics (also exposed over JMX as " + OperationMetrics.JMX_DOMAIN
+        + ") ---");
+    LOG.info("\n" + OperationMetrics.dump());
+    LOG.info(String.format("Cipher cache: %s", CipherCache.stats()));
+    LOG.info(String.format("Public key cache: %s", RSAUtils.publicKeyCache().stats()));
+    LOG.info(String.format("Private key cache: %s", RSAUtils.privateKeyCache().stats()));
   }
 }
@@ -14,6 +14,7 @@ import org.example.parsers.FileInputParser;
 import org.example.parsers.InputParser;
 import org.example.utils.DirectoryFilePicker;
 import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
 
 public class RsaRepl {
 
@@ -21,8 +22,22 @@ public class RsaRepl {
   private final RsaActions actions;
 
   public RsaRepl(Scanner sc, DirectoryFilePicker picker) {
+    this(sc, picker, ConfigRepl.OutputFormat.BASE64);
+  }
+
+  public RsaRepl(Scanner sc, DirectoryFilePicker picker, ConfigRepl.OutputFormat outputFormat) {
+    this(sc, picker, outputFormat, RSAUtils.defaultEngine());
+  }
+
+  public RsaRepl(Scanner sc, DirectoryFilePicker picker, ConfigRepl.OutputFormat outputFormat,
+      RsaEngine engine) {
+    this(sc, picker, outputFormat, engine, null);
+  }
+
+  public RsaRepl(Scanner sc, DirectoryFilePicker picker, ConfigRepl.OutputFormat outputFormat,
+      RsaEngine engine, KeyStoreService keyStore) {
     this.sc = sc;
-    this.actions = new RsaActions(sc, picker);
+    this.actions = new RsaActions(sc, picker, outputFormat, engine, keyStore);
   }
 
   public void run(KeyPair keyPair) {
@@ -43,6 +58,19 @@ public class RsaRepl {
           case 8 -> actions.decryptLargeFromFile(keyPair);
           case 9 -> actions.encryptFromTerminalWithCustomPublicKey();
           case 10 -> actions.decryptFromTerminalWithCustomPrivateKey();
+          case 11 -> actions.encryptHybridFromTerminal(keyPair);
+          case 12 -> actions.encryptHybridFromFile(keyPair);
+          case 13 -> actions.decryptHybridFromTerminal(keyPair);
+          case 14 -> actions.decryptHybridFromFile(keyPair);
+          case 15 -> actions.showMetrics();
+          case 16 -> actions.bulkEncrypt(keyPair);
+          case 17 -> actions.bulkDecrypt(keyPair);
+          case 18 -> actions.watchInput(keyPair);
+          case 19 -> actions.decryptRangeFromFile(keyPair);
+          case 20 -> actions.encryptMultiRecipientFromFile(keyPair);
+          case 21 -> actions.decryptMultiRecipientFromFile(keyPair);
+          case 22 -> actions.listKeys();
+          case 23 -> keyPair = actions.rotateKey(keyPair);
           case 0 -> {
             LOG.info("Exiting...");
             running = false;
@@ -72,6 +100,19 @@ public class RsaRepl {
     LOG.info("  8) Decrypt LARGE ciphertext from file (chunked RSA)");
     LOG.info("  9) Encrypt from terminal with custom PUBLIC key");
     LOG.info("  10) Decrypt from terminal with custom PRIVATE key");
+    LOG.info("  11) Encrypt text from terminal (hybrid RSA + AES-GCM)");
+    LOG.info("  12) Encrypt file from data/input (hybrid RSA + AES-GCM)");
+    LOG.info("  13) Decrypt hybrid ciphertext from terminal");
+    LOG.info("  14) Decrypt hybrid ciphertext from a file in data/output");
+    LOG.info("  15) Show operation metrics");
+    LOG.info("  16) Bulk encrypt new/changed .txt files under data/input");
+    LOG.info("  17) Bulk decrypt every .enc file under data/output");
+    LOG.info("  18) Watch data/input and encrypt .txt files as they arrive");
+    LOG.info("  19) Decrypt a byte range of a chunked file in data/output");
+    LOG.info("  20) Encrypt file from data/input for several recipients");
+    LOG.info("  21) Decrypt a multi-recipient file from data/output");
+    LOG.info("  22) List key pairs");
+    LOG.info("  23) Rotate to a new active key pair");
     LOG.info("  0) Exit");
     System.out.print("Option: ");
   }
@@ -82,7 +123,7 @@ public class RsaRepl {
       try {
         return Integer.parseInt(line);
       } catch (NumberFormatException e) {
-        System.out.print("Please enter a number (0-10): ");
+        System.out.print("Please enter a number (0-23): ");
       }
     }
   }
@@ -0,0 +1,249 @@
+package org.example.services;
+
+import static org.example.services.DaemonProtocol.FLAG_BASE64;
+import static org.example.services.DaemonProtocol.MAGIC;
+import static org.example.services.DaemonProtocol.MAX_FRAME;
+import static org.example.services.DaemonProtocol.STATUS_ERROR;
+import static org.example.services.DaemonProtocol.STATUS_OK;
+import static org.example.utils.AppLogger.LOG;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.example.services.DaemonProtocol.FrameInputStream;
+import org.example.services.DaemonProtocol.FrameOutputStream;
+import org.example.utils.RSAUtils;
+import org.example.utils.RsaEngine;
+
+public class UnixSocketDaemon {
+
+  private static final int WARMUP_ROUNDS = 200;
+
+  private final KeyPair keyPair;
+  private final RsaEngine engine;
+  private final Path socketPath;
+  private final int workers;
+  // single-block requests run their cipher on the worker itself, so each worker's per-thread
+  // Cipher instances are warmed up front; chunked requests run on the RSAUtils pipeline threads
+  private final ExecutorService executor;
+  private volatile boolean running = true;
+  private ServerSocketChannel server;
+
+  public UnixSocketDaemon(KeyPair keyPair, Path socketPath, int workers) {
+    this(keyPair, RSAUtils.defaultEngine(), socketPath, workers);
+  }
+
+  public UnixSocketDaemon(KeyPair keyPair, RsaEngine engine, Path socketPath, int workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Daemon needs at least one worker");
+    }
+    this.keyPair = keyPair;
+    this.engine = engine;
+    this.socketPath = socketPath;
+    this.workers = workers;
+    this.executor = Executors.newFixedThreadPool(workers, r -> {
+      Thread t = new Thread(r, "rsa-daemon-worker");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  public void run() throws IOException {
+    warmUp();
+    server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    bindOwnerOnly();
+    LOG.info(String.format("RSA daemon listening on %s with %s worker(s)",
+        socketPath.toAbsolutePath(), workers));
+    try {
+      while (running) {
+        SocketChannel client = server.accept();
+        executor.execute(() -> handle(client));
+      }
+    } catch (IOException e) {
+      if (running) {
+        throw e;
+      }
+    } finally {
+      stop();
+    }
+  }
+
+  public void stop() {
+    running = false;
+    executor.shutdownNow();
+    try {
+      if (server != null) {
+        server.close();
+      }
+      Files.deleteIfExists(socketPath);
+    } catch (IOException e) {
+      LOG.warning(String.format("Could not clean up socket: %s", e.getMessage()));
+    }
+  }
+
+  /**
+   * Anyone who can connect can make the daemon use its private key, so the socket must be
+   * owner-only before it becomes reachable: it is bound inside a fresh 0700 directory, set to
+   * 0600 and only then renamed to {@code socketPath}.
+   */
+  private void bindOwnerOnly() throws IOException {
+    Path dir = socketPath.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Files.deleteIfExists(socketPath);
+    if (!dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      LOG.warning("No POSIX permissions on this file system, socket access is not restricted");
+      server.bind(UnixDomainSocketAddress.of(socketPath));
+      return;
+    }
+    Path staging = Files.createTempDirectory(dir, ".rsa-sock",
+        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+    try {
+      Path staged = staging.resolve(socketPath.getFileName());
+      server.bind(UnixDomainSocketAddress.of(staged));
+      Files.setPosixFilePermissions(staged, PosixFilePermissions.fromString("rw-------"));
+      Files.move(staged, socketPath, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(staging.resolve(socketPath.getFileName()));
+      Files.delete(staging);
+    }
+  }
+
+  private void warmUp() {
+    CountDownLatch started = new CountDownLatch(workers);
+    CountDownLatch done = new CountDownLatch(workers);
+    byte[] sample = "warm-up".getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < workers; i++) {
+      executor.execute(() -> {
+        // hold every worker until all have started so each thread warms its own ciphers; this
+        // covers the single-block path only
+        started.countDown();
+        try {
+          started.await();
+          for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            engine.decrypt(engine.encrypt(sample, keyPair.getPublic()), keyPair.getPrivate());
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handle(SocketChannel channel) {
+    try (channel) {
+      DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Channels.newInputStream(channel), MAX_FRAME));
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel), MAX_FRAME));
+      while (running) {
+        int magic = in.read();
+        if (magic == -1) {
+          return;
+        }
+        if (magic != MAGIC) {
+          throw new IOException("Bad request magic: " + magic);
+        }
+        byte op = in.readByte();
+        boolean base64 = (in.readByte() & FLAG_BASE64) != 0;
+        serveRequest(op, base64, in, out);
+      }
+    } catch (EOFException ignored) {
+      // client went away mid-request
+    } catch (IOException e) {
+      LOG.warning(String.format("Daemon connection failed: %s", e.getMessage()));
+    }
+  }
+
+  private void serveRequest(byte op, boolean base64, DataInputStream in, DataOutputStream out)
+      throws IOException {
+    FrameInputStream request = new FrameInputStream(in);
+    try {
+      switch (op) {
+        case DaemonProtocol.OP_PING -> respond(out, new byte[0]);
+        case DaemonProtocol.OP_PUBLIC_KEY -> respond(out, maybeEncode(
+            keyPair.getPublic().getEncoded(), base64));
+        case DaemonProtocol.OP_ENCRYPT -> respond(out, maybeEncode(
+            engine.encrypt(request.readAllBytes(), keyPair.getPublic()), base64));
+        case DaemonProtocol.OP_DECRYPT -> respond(out, engine.decrypt(
+            maybeDecode(request.readAllBytes(), base64), keyPair.getPrivate()));
+        case DaemonProtocol.OP_ENCRYPT_LARGE -> {
+          out.writeByte(STATUS_OK);
+          // the terminating frame is only written on success, see close() below
+          OutputStream payload = new FrameOutputStream(out);
+          if (base64) {
+            engine.encryptLargeToBase64(request, payload, keyPair.getPublic());
+          } else {
+            engine.encryptLarge(request, payload, keyPair.getPublic());
+          }
+          payload.close();
+        }
+        case DaemonProtocol.OP_DECRYPT_LARGE -> {
+          out.writeByte(STATUS_OK);
+          OutputStream payload = new FrameOutputStream(out);
+          if (base64) {
+            engine.decryptLargeFromBase64(request, payload, keyPair.getPrivate());
+          } else {
+            engine.decryptLarge(request, payload, keyPair.getPrivate());
+          }
+          payload.close();
+        }
+        default -> throw new IllegalArgumentException("Unknown op code: " + op);
+      }
+    } catch (RuntimeException e) {
+      if (op == DaemonProtocol.OP_ENCRYPT_LARGE || op == DaemonProtocol.OP_DECRYPT_LARGE) {
+        // STATUS_OK and part of the payload may be out; dropping the connection aborts it
+        throw new IOException("Streaming request failed: " + e.getMessage(), e);
+      }
+      request.close();
+      out.writeByte(STATUS_ERROR);
+      out.writeUTF(String.valueOf(e.getMessage()));
+      out.flush();
+      return;
+    }
+    request.close();
+  }
+
+  private static void respond(DataOutputStream out, byte[] payload) throws IOException {
+    out.writeByte(STATUS_OK);
+    try (OutputStream frames = new FrameOutputStream(out)) {
+      frames.write(payload);
+    }
+  }
+
+  private static byte[] maybeEncode(byte[] bytes, boolean base64) {
+    return base64 ? Base64.getEncoder().encode(bytes) : bytes;
+  }
+
+  private static byte[] maybeDecode(byte[] bytes, boolean base64) {
+    if (!base64) {
+      return bytes;
+    }
+    return Base64.getDecoder().decode(new String(bytes, StandardCharsets.US_ASCII).trim());
+  }
+}
@@ -0,0 +1,200 @@
+package org.example.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link CompletableFuture} front end for an {@link RsaEngine}. Work runs on a fixed pool of
+ * {@code threads} platform threads fed by a queue of at most {@code queueCapacity} tasks, so
+ * private-key operations never occupy the caller's (I/O) thread. What happens once the queue is
+ * full is set by {@link Overload}.
+ *
+ * <p>The chunked methods read and write their streams on a pool thread; pass in-memory or file
+ * streams, not sockets, or a slow peer ties up a crypto thread.
+ */
+public final class AsyncRsa implements AutoCloseable {
+
+  public static final int DEFAULT_QUEUE_PER_THREAD = 64;
+
+  /** Policy for submissions that find every thread busy and the queue full. */
+  public enum Overload {
+    /** The returned future fails at once with {@link RejectedExecutionException}. */
+    ABORT,
+    /** The submitting thread does the work itself, which slows the producer down. */
+    CALLER_RUNS,
+    /** The submitting thread waits for room in the queue. */
+    BLOCK;
+
+    public static Overload parse(String name) {
+      try {
+        return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown overload policy: " + name
+            + " (expected abort, caller-runs or block)");
+      }
+    }
+  }
+
+  public record Stats(int threads, int active, int queued, int queueCapacity, long completed,
+                      long rejected) {}
+
+  private final RsaEngine engine;
+  private final Overload overload;
+  private final int queueCapacity;
+  private final ThreadPoolExecutor executor;
+  private final LongAdder rejected = new LongAdder();
+
+  public AsyncRsa(RsaEngine engine) {
+    this(engine, Runtime.getRuntime().availableProcessors(), Overload.ABORT);
+  }
+
+  public AsyncRsa(RsaEngine engine, int threads, Overload overload) {
+    this(engine, threads, threads * DEFAULT_QUEUE_PER_THREAD, overload);
+  }
+
+  public AsyncRsa(RsaEngine engine, int threads, int queueCapacity, Overload overload) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Async RSA needs at least one thread");
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Async RSA queue capacity must be at least 1");
+    }
+    this.engine = engine;
+    this.overload = overload;
+    this.queueCapacity = queueCapacity;
+    AtomicInteger counter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          Thread t = new Thread(r, "rsa-async-" + counter.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }, handler(overload));
+    executor.prestartAllCoreThreads();
+  }
+
+  public RsaEngine engine() {
+    return engine;
+  }
+
+  public Overload overload() {
+    return overload;
+  }
+
+  public CompletableFuture<byte[]> encryptAsync(byte[] plainBytes, PublicKey publicKey) {
+    return submit(() -> engine.encrypt(plainBytes, publicKey));
+  }
+
+  public CompletableFuture<byte[]> decryptAsync(byte[] cipherBytes, PrivateKey privateKey) {
+    return submit(() -> engine.decrypt(cipherBytes, privateKey));
+  }
+
+  public CompletableFuture<String> encryptToBase64Async(String plainText, PublicKey publicKey) {
+    return submit(() -> engine.encryptToBase64(plainText, publicKey));
+  }
+
+  public CompletableFuture<String> decryptFromBase64Async(String base64Ciphertext,
+      PrivateKey privateKey) {
+    return submit(() -> engine.decryptFromBase64(base64Ciphertext, privateKey));
+  }
+
+  /** Completes with the number of RSA blocks written, like {@link RsaEngine#encryptLarge}. */
+  public CompletableFuture<Long> encryptLargeAsync(InputStream in, OutputStream out,
+      PublicKey publicKey) {
+    return submit(() -> {
+      try {
+        return engine.encryptLarge(in, out, publicKey);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  public CompletableFuture<Long> decryptLargeAsync(InputStream in, OutputStream out,
+      PrivateKey privateKey) {
+    return submit(() -> {
+      try {
+        return engine.decryptLarge(in, out, privateKey);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  public CompletableFuture<String> encryptLargeToBase64Async(String plainText,
+      PublicKey publicKey) {
+    return submit(() -> engine.encryptLargeToBase64(plainText, publicKey));
+  }
+
+  public CompletableFuture<String> decryptLargeFromBase64Async(String base64Ciphertext,
+      PrivateKey privateKey) {
+    return submit(() -> engine.decryptLargeFromBase64(base64Ciphertext, privateKey));
+  }
+
+  public Stats stats() {
+    return new Stats(executor.getCorePoolSize(), executor.getActiveCount(),
+        executor.getQueue().size(), queueCapacity, executor.getCompletedTaskCount(),
+        rejected.sum());
+  }
+
+  /** Stops accepting work and waits for queued tasks to finish. */
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private static RejectedExecutionHandler handler(Overload overload) {
+    return switch (overload) {
+      case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+      case CALLER_RUNS -> (r, pool) -> {
+        if (pool.isShutdown()) {
+          throw new RejectedExecutionException("Async RSA executor is shut down");
+        }
+        r.run();
+      };
+      case BLOCK -> (r, pool) -> {
+        try {
+          // re-checked after waking so a shutdown does not strand the task in the queue
+          while (!pool.isShutdown()) {
+            if (pool.getQueue().offer(r, 100, TimeUnit.MILLISECONDS)) {
+              return;
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        throw new RejectedExecutionException("Async RSA executor is shut down or interrupted");
+      };
+    };
+  }
+}
@@ -0,0 +1,255 @@
+package org.example.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.crypto.Cipher;
+
+/**
+ * Chunked RSA as three overlapping stages: a reader fills batches from the input, one or more
+ * cipher stages transform them, and the calling thread writes them out in their original
+ * order. Batches travel through bounded queues and are recycled, so memory stays at
+ * {@code cipherStages + 2} batches at most, no matter how large the input is.
+ */
+final class BlockPipeline {
+
+  record Result(long blocks, long bytes) {}
+
+  // shared platform threads: stages keep their per-thread CipherCache entries between calls
+  private static final ExecutorService STAGES = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "rsa-pipeline");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final String transformation;
+  private final String provider;
+  private final int mode;
+  private final Key key;
+  private final int inBlockSize;
+  private final int outBlockSize;
+  private final int cipherStages;
+  private final int batchBlocks;
+  private final int maxBatches;
+
+  private final Batch end = new Batch(0, 0, 0);
+  private final Batch abort = new Batch(0, 0, 0);
+  private final BlockingQueue<Batch> free;
+  private final BlockingQueue<Batch> toCipher;
+  private final BlockingQueue<Batch> toWriter;
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+  BlockPipeline(String transformation, String provider, int mode, Key key, int inBlockSize,
+      int outBlockSize, int batchBlocks, int cipherStages) {
+    this.transformation = transformation;
+    this.provider = provider;
+    this.mode = mode;
+    this.key = key;
+    this.inBlockSize = inBlockSize;
+    this.outBlockSize = outBlockSize;
+    this.cipherStages = cipherStages;
+    this.batchBlocks = batchBlocks;
+    this.maxBatches = cipherStages + 2;
+    // room for every batch plus all sentinels (the reader's and run()'s on failure), so
+    // handing on a sentinel never blocks
+    int capacity = maxBatches + 2 * cipherStages + 1;
+    this.free = new ArrayBlockingQueue<>(maxBatches + 1);
+    this.toCipher = new ArrayBlockingQueue<>(capacity);
+    this.toWriter = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Returns or throws only after every stage has stopped, so the caller may close {@code in}
+   * and {@code out} (and whatever feeds them, e.g. a {@code Deflater}) right away. After a
+   * failure that can mean waiting for a reader blocked in {@code in.read()} to return.
+   */
+  Result run(InputStream in, OutputStream out) throws IOException, GeneralSecurityException {
+    CountDownLatch stopped = new CountDownLatch(1 + cipherStages);
+    try {
+      STAGES.execute(stage(() -> read(in), stopped));
+      for (int i = 0; i < cipherStages; i++) {
+        STAGES.execute(stage(this::transform, stopped));
+      }
+      return write(out);
+    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+      fail(e);
+      throw e;
+    } catch (InterruptedException e) {
+      fail(e);
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while processing blocks", e);
+    } finally {
+      if (failure.get() != null) {
+        // wake stages parked on a queue; the capacities leave room for these sentinels
+        free.offer(abort);
+        for (int i = 0; i < cipherStages; i++) {
+          toCipher.offer(end);
+        }
+      }
+      awaitStages(stopped);
+    }
+  }
+
+  private static Runnable stage(Runnable body, CountDownLatch stopped) {
+    return () -> {
+      try {
+        body.run();
+      } finally {
+        stopped.countDown();
+      }
+    };
+  }
+
+  private static void awaitStages(CountDownLatch stopped) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        stopped.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void read(InputStream in) {
+    try {
+      long seq = 0;
+      long total = 0;
+      int created = 0;
+      while (failure.get() == null) {
+        // batches are allocated on demand, so short inputs only ever pay for one
+        Batch batch = free.poll();
+        if (batch == null && created < maxBatches) {
+          batch = new Batch(batchBlocks, inBlockSize, outBlockSize);
+          created++;
+        } else if (batch == null) {
+          batch = free.take();
+        }
+        if (batch == abort) {
+          return;
+        }
+        int read = in.readNBytes(batch.src, 0, batch.src.length);
+        if (read == 0) {
+          break;
+        }
+        total += read;
+        if (mode == Cipher.DECRYPT_MODE && read % inBlockSize != 0) {
+          throw new IllegalArgumentException(
+              "Ciphertext length (" + total + ") is not a multiple of block size ("
+                  + inBlockSize + ")");
+        }
+        batch.seq = seq++;
+        batch.read = read;
+        toCipher.put(batch);
+      }
+      for (int i = 0; i < cipherStages; i++) {
+        toCipher.put(end);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  private void transform() {
+    try {
+      while (true) {
+        Batch batch = toCipher.take();
+        if (batch == end) {
+          toWriter.put(end);
+          return;
+        }
+        if (failure.get() != null) {
+          // the writer is gone; drain without doing RSA work until an end arrives
+          continue;
+        }
+        batch.count = RSAUtils.runBlocks(transformation, provider, mode, key, batch.srcBuffer,
+            batch.read, inBlockSize, batch.dstBuffer, outBlockSize, batch.lengths);
+        toWriter.put(batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (GeneralSecurityException | RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  private Result write(OutputStream out)
+      throws IOException, GeneralSecurityException, InterruptedException {
+    Map<Long, Batch> early = new HashMap<>();
+    long next = 0;
+    long blocks = 0;
+    long bytes = 0;
+    int ended = 0;
+    while (ended < cipherStages) {
+      Batch batch = toWriter.take();
+      if (batch == abort) {
+        Exception e = failure.get();
+        if (e instanceof IOException io) {
+          throw io;
+        }
+        if (e instanceof GeneralSecurityException gse) {
+          throw gse;
+        }
+        throw (RuntimeException) e;
+      }
+      if (batch == end) {
+        ended++;
+        continue;
+      }
+      early.put(batch.seq, batch);
+      // with several cipher stages batches can finish out of order; write strictly by sequence
+      for (Batch ready; (ready = early.remove(next)) != null; next++) {
+        for (int i = 0; i < ready.count; i++) {
+          out.write(ready.dst, i * outBlockSize, ready.lengths[i]);
+        }
+        blocks += ready.count;
+        bytes += ready.read;
+        free.put(ready);
+      }
+    }
+    out.flush();
+    return new Result(blocks, bytes);
+  }
+
+  private void fail(Exception e) {
+    if (failure.compareAndSet(null, e)) {
+      toWriter.offer(abort);
+    }
+  }
+
+  private static final class Batch {
+    private final byte[] src;
+    private final byte[] dst;
+    private final ByteBuffer srcBuffer;
+    private final ByteBuffer dstBuffer;
+    private final int[] lengths;
+    private long seq;
+    private int read;
+    private int count;
+
+    private Batch(int blocks, int inBlockSize, int outBlockSize) {
+      this.src = new byte[blocks * inBlockSize];
+      this.dst = new byte[blocks * outBlockSize];
+      this.srcBuffer = ByteBuffer.wrap(src);
+      this.dstBuffer = ByteBuffer.wrap(dst);
+      this.lengths = new int[blocks];
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package org.example.utils;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Cipher;
+
+public final class CipherCache {
+
+  public record Stats(long cipherHits, long cipherReinits, long cipherMisses,
+                      long keyFactoryHits, long keyFactoryMisses) {}
+
+  // one slot per Cipher mode (ENCRYPT_MODE..UNWRAP_MODE) so alternating modes do not re-init
+  private static final ThreadLocal<Map<String, Entry[]>> CIPHERS =
+      ThreadLocal.withInitial(HashMap::new);
+  // ciphers pinned to an explicit provider, keyed by provider name first
+  private static final ThreadLocal<Map<String, Map<String, Entry[]>>> PROVIDER_CIPHERS =
+      ThreadLocal.withInitial(HashMap::new);
+  private static final ThreadLocal<Map<String, KeyFactory>> KEY_FACTORIES =
+      ThreadLocal.withInitial(HashMap::new);
+
+  private static final LongAdder cipherHits = new LongAdder();
+  private static final LongAdder cipherReinits = new LongAdder();
+  private static final LongAdder cipherMisses = new LongAdder();
+  private static final LongAdder keyFactoryHits = new LongAdder();
+  private static final LongAdder keyFactoryMisses = new LongAdder();
+
+  private CipherCache() {
+  }
+
+  public static Cipher cipher(String transformation, int mode, Key key)
+      throws GeneralSecurityException {
+    return cipher(transformation, null, mode, key);
+  }
+
+  /** Like {@link #cipher(String, int, Key)}; a {@code null} provider means the JCA default. */
+  public static Cipher cipher(String transformation, String provider, int mode, Key key)
+      throws GeneralSecurityException {
+    Entry entry = slot(transformation, provider, mode);
+    if (entry.cipher == null) {
+      cipherMisses.increment();
+      entry.cipher = newCipher(transformation, provider);
+    } else if (entry.mode == mode && entry.key == key) {
+      cipherHits.increment();
+      return entry.cipher;
+    } else {
+      cipherReinits.increment();
+    }
+    entry.mode = -1;
+    entry.key = null;
+    entry.cipher.init(mode, key);
+    entry.mode = mode;
+    entry.key = key;
+    return entry.cipher;
+  }
+
+  public static Cipher cipher(String transformation, int mode, Key key,
+      AlgorithmParameterSpec params) throws GeneralSecurityException {
+    Entry entry = slot(transformation, null, mode);
+    if (entry.cipher == null) {
+      cipherMisses.increment();
+      entry.cipher = Cipher.getInstance(transformation);
+    } else {
+      cipherReinits.increment();
+    }
+    entry.mode = -1;
+    entry.key = null;
+    entry.cipher.init(mode, key, params);
+    return entry.cipher;
+  }
+
+  private static Cipher newCipher(String transformation, String provider)
+      throws GeneralSecurityException {
+    return provider == null
+        ? Cipher.getInstance(transformation)
+        : Cipher.getInstance(transformation, provider);
+  }
+
+  private static Entry slot(String transformation, String provider, int mode) {
+    Map<String, Entry[]> ciphers = provider == null
+        ? CIPHERS.get()
+        : PROVIDER_CIPHERS.get().computeIfAbsent(provider, p -> new HashMap<>());
+    Entry[] slots = ciphers.computeIfAbsent(transformation, t -> {
+      Entry[] fresh = new Entry[Cipher.UNWRAP_MODE + 1];
+      for (int i = 0; i < fresh.length; i++) {
+        fresh[i] = new Entry();
+      }
+      return fresh;
+    });
+    return slots[mode];
+  }
+
+  public static KeyFactory keyFactory(String algorithm) throws GeneralSecurityException {
+    Map<String, KeyFactory> factories = KEY_FACTORIES.get();
+    KeyFactory kf = factories.get(algorithm);
+    if (kf == null) {
+      keyFactoryMisses.increment();
+      kf = KeyFactory.getInstance(algorithm);
+      factories.put(algorithm, kf);
+    } else {
+      keyFactoryHits.increment();
+    }
+    return kf;
+  }
+
+  public static Stats stats() {
+    return new Stats(cipherHits.sum(), cipherReinits.sum(), cipherMisses.sum(),
+        keyFactoryHits.sum(), keyFactoryMisses.sum());
+  }
+
+  private static final class Entry {
+    private Cipher cipher;
+    private int mode = -1;
+    private Key key;
+  }
+}
@@ -0,0 +1,274 @@
+package org.example.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.HexFormat;
+
+/**
+ * Binary ciphertext file: {@code "RSAC" | version | sha256(public key) | transformation |
+ * blockSize | blockCount | plainBlockSize | plainLength | raw RSA blocks}, all integers
+ * big-endian. Every block but the last holds exactly {@code plainBlockSize} plaintext bytes, so
+ * plaintext offset {@code n} lives in block {@code n / plainBlockSize}; version 1 files lack the
+ * last two header fields and are still readable.
+ */
+public final class CipherContainer {
+
+  public static final byte VERSION = 2;
+  private static final byte VERSION_1 = 1;
+  private static final byte[] MAGIC = {'R', 'S', 'A', 'C'};
+  private static final int FINGERPRINT_SIZE = 32;
+  private static final int MAX_TRANSFORMATION_LENGTH = 256;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+  /** {@code plainLength} is -1 for version 1 files, which do not record it. */
+  public record Header(int version, String keyFingerprint, String transformation, int blockSize,
+                       long blockCount, int plainBlockSize, long plainLength, long dataOffset) {}
+
+  private CipherContainer() {
+  }
+
+  public static boolean isContainer(Path path) throws IOException {
+    // the version byte is never a Base64 character, so legacy text files cannot match
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buf = ByteBuffer.allocate(MAGIC.length + 1);
+      while (buf.hasRemaining() && ch.read(buf) >= 0) {
+        // keep reading until the prefix is complete or EOF
+      }
+      if (buf.hasRemaining()) {
+        return false;
+      }
+      buf.flip();
+      byte version = buf.get(MAGIC.length);
+      return buf.slice(0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))
+          && (version == VERSION || version == VERSION_1);
+    }
+  }
+
+  public static Header encrypt(InputStream in, Path outFile, PublicKey publicKey,
+      String transformation) throws IOException {
+    return encrypt(in, outFile, publicKey, transformation, null);
+  }
+
+  /** Encrypts with {@code engine}'s transformation and JCA provider. */
+  public static Header encrypt(InputStream in, Path outFile, PublicKey publicKey,
+      RsaEngine engine) throws IOException {
+    return encrypt(in, outFile, publicKey, engine.transformation(), engine.provider());
+  }
+
+  private static Header encrypt(InputStream in, Path outFile, PublicKey publicKey,
+      String transformation, String provider) throws IOException {
+    ByteBuffer header = header(publicKey, transformation, 0L, 0L);
+    // blockCount and plainLength are only known at the end and patched in place
+    int countPosition = header.limit() - Long.BYTES - Integer.BYTES - Long.BYTES;
+    int lengthPosition = header.limit() - Long.BYTES;
+    CountingInputStream counted = new CountingInputStream(in);
+
+    try (FileChannel ch = FileChannel.open(outFile, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writeFully(ch, header, 0);
+      ch.position(header.limit());
+
+      OutputStream out = new BufferedOutputStream(Channels.newOutputStream(ch), BUFFER_SIZE);
+      long blocks = RSAUtils.encryptLarge(counted, out, publicKey, transformation, provider);
+      out.flush();
+
+      writeFully(ch, ByteBuffer.allocate(Long.BYTES).putLong(0, blocks), countPosition);
+      writeFully(ch, ByteBuffer.allocate(Long.BYTES).putLong(0, counted.count()), lengthPosition);
+      return headerFor(publicKey, transformation, blocks, counted.count(), header.limit());
+    }
+  }
+
+  public static Header encryptMapped(Path inFile, Path outFile, PublicKey publicKey,
+      String transformation) throws IOException {
+    return encryptMapped(inFile, outFile, publicKey, transformation, null, null);
+  }
+
+  /** Encrypts with {@code engine}'s transformation and JCA provider. */
+  public static Header encryptMapped(Path inFile, Path outFile, PublicKey publicKey,
+      RsaEngine engine) throws IOException {
+    return encryptMapped(inFile, outFile, publicKey, engine, null);
+  }
+
+  /**
+   * Like {@link #encryptMapped(Path, Path, PublicKey, RsaEngine)}, also feeding every plaintext
+   * window to {@code digest} (if not {@code null}) right before it is encrypted.
+   */
+  public static Header encryptMapped(Path inFile, Path outFile, PublicKey publicKey,
+      RsaEngine engine, MessageDigest digest) throws IOException {
+    return encryptMapped(inFile, outFile, publicKey, engine.transformation(), engine.provider(),
+        digest);
+  }
+
+  private static Header encryptMapped(Path inFile, Path outFile, PublicKey publicKey,
+      String transformation, String provider, MessageDigest digest) throws IOException {
+    int blockSize = RSAUtils.blockSize(publicKey);
+    int plainBlockSize = RSAUtils.maxPlainBlockSize(blockSize, transformation);
+    long windowBlocks = MAP_WINDOW / blockSize;
+
+    try (FileChannel src = FileChannel.open(inFile, StandardOpenOption.READ);
+        FileChannel dst = FileChannel.open(outFile, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      long plainSize = src.size();
+      long blocks = (plainSize + plainBlockSize - 1) / plainBlockSize;
+      ByteBuffer header = header(publicKey, transformation, blocks, plainSize);
+      long dataStart = header.limit();
+      writeFully(dst, header, 0);
+
+      for (long block = 0; block < blocks; block += windowBlocks) {
+        long count = Math.min(windowBlocks, blocks - block);
+        long plainOffset = block * plainBlockSize;
+        long plainLength = Math.min(count * plainBlockSize, plainSize - plainOffset);
+        MappedByteBuffer in = src.map(FileChannel.MapMode.READ_ONLY, plainOffset, plainLength);
+        if (digest != null) {
+          digest.update(in.duplicate());
+        }
+        MappedByteBuffer out = dst.map(FileChannel.MapMode.READ_WRITE,
+            dataStart + block * blockSize, count * blockSize);
+        RSAUtils.encryptBlocks(in, out, publicKey, transformation, provider);
+        out.force();
+      }
+      return headerFor(publicKey, transformation, blocks, plainSize, dataStart);
+    }
+  }
+
+  private static Header headerFor(PublicKey publicKey, String transformation, long blocks,
+      long plainLength, long dataOffset) {
+    int blockSize = RSAUtils.blockSize(publicKey);
+    return new Header(VERSION, RSAUtils.fingerprint(publicKey), transformation, blockSize,
+        blocks, RSAUtils.maxPlainBlockSize(blockSize, transformation), plainLength, dataOffset);
+  }
+
+  private static ByteBuffer header(PublicKey publicKey, String transformation, long blockCount,
+      long plainLength) {
+    byte[] fingerprint = HexFormat.of().parseHex(RSAUtils.fingerprint(publicKey));
+    byte[] transformationBytes = transformation.getBytes(StandardCharsets.US_ASCII);
+    int blockSize = RSAUtils.blockSize(publicKey);
+    ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1 + FINGERPRINT_SIZE + Short.BYTES
+        + transformationBytes.length + Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES);
+    header.put(MAGIC).put(VERSION).put(fingerprint)
+        .putShort((short) transformationBytes.length).put(transformationBytes)
+        .putInt(blockSize)
+        .putLong(blockCount)
+        .putInt(RSAUtils.maxPlainBlockSize(blockSize, transformation))
+        .putLong(plainLength);
+    return header.flip();
+  }
+
+  public static Header readHeader(Path path) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      return readHeader(ch);
+    }
+  }
+
+  public static Header decrypt(Path inFile, OutputStream out, PrivateKey privateKey)
+      throws IOException {
+    return decrypt(inFile, out, privateKey, (String) null);
+  }
+
+  /** Decrypts with the transformation recorded in the header and {@code engine}'s provider. */
+  public static Header decrypt(Path inFile, OutputStream out, PrivateKey privateKey,
+      RsaEngine engine) throws IOException {
+    return decrypt(inFile, out, privateKey, engine.provider());
+  }
+
+  private static Header decrypt(Path inFile, OutputStream out, PrivateKey privateKey,
+      String provider) throws IOException {
+    try (FileChannel ch = FileChannel.open(inFile, StandardOpenOption.READ)) {
+      Header header = readHeader(ch);
+      if (header.blockSize() != RSAUtils.blockSize(privateKey)) {
+        throw new IllegalArgumentException("Container block size (" + header.blockSize()
+            + ") does not match the private key (" + RSAUtils.blockSize(privateKey) + ")");
+      }
+      long expectedBytes = header.blockCount() * header.blockSize();
+      if (ch.size() - ch.position() != expectedBytes) {
+        throw new EOFException("Container holds " + (ch.size() - ch.position())
+            + " ciphertext bytes, header declares " + expectedBytes);
+      }
+      InputStream in = new BufferedInputStream(Channels.newInputStream(ch), BUFFER_SIZE);
+      RSAUtils.decryptLarge(in, out, privateKey, header.transformation(), provider);
+      return header;
+    }
+  }
+
+  private static Header readHeader(ReadableByteChannel ch) throws IOException {
+    ByteBuffer fixed = readFully(ch, MAGIC.length + 1 + FINGERPRINT_SIZE + Short.BYTES);
+    byte[] magic = new byte[MAGIC.length];
+    fixed.get(magic);
+    if (!ByteBuffer.wrap(magic).equals(ByteBuffer.wrap(MAGIC))) {
+      throw new IllegalArgumentException("Not a binary ciphertext container");
+    }
+    int version = fixed.get();
+    if (version != VERSION && version != VERSION_1) {
+      throw new IllegalArgumentException("Unsupported container version: " + version);
+    }
+    byte[] fingerprint = new byte[FINGERPRINT_SIZE];
+    fixed.get(fingerprint);
+    int transformationLength = Short.toUnsignedInt(fixed.getShort());
+    if (transformationLength == 0 || transformationLength > MAX_TRANSFORMATION_LENGTH) {
+      throw new IllegalArgumentException("Invalid transformation length: " + transformationLength);
+    }
+
+    ByteBuffer rest = readFully(ch, transformationLength + Integer.BYTES + Long.BYTES);
+    byte[] transformationBytes = new byte[transformationLength];
+    rest.get(transformationBytes);
+    String transformation = new String(transformationBytes, StandardCharsets.US_ASCII);
+    int blockSize = rest.getInt();
+    long blockCount = rest.getLong();
+    if (blockSize <= 0 || blockCount < 0) {
+      throw new IllegalArgumentException("Corrupt container header");
+    }
+    long dataOffset = fixed.capacity() + rest.capacity();
+
+    int plainBlockSize;
+    long plainLength;
+    if (version == VERSION_1) {
+      plainBlockSize = RSAUtils.maxPlainBlockSize(blockSize, transformation);
+      plainLength = -1;
+    } else {
+      ByteBuffer plain = readFully(ch, Integer.BYTES + Long.BYTES);
+      plainBlockSize = plain.getInt();
+      plainLength = plain.getLong();
+      dataOffset += plain.capacity();
+      if (plainBlockSize <= 0 || plainBlockSize > blockSize || plainLength < 0
+          || plainLength > blockCount * plainBlockSize) {
+        throw new IllegalArgumentException("Corrupt container header");
+      }
+    }
+    return new Header(version, HexFormat.of().formatHex(fingerprint), transformation, blockSize,
+        blockCount, plainBlockSize, plainLength, dataOffset);
+  }
+
+  private static ByteBuffer readFully(ReadableByteChannel ch, int length) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(length);
+    while (buf.hasRemaining()) {
+      if (ch.read(buf) < 0) {
+        throw new EOFException("Truncated container header");
+      }
+    }
+    return buf.flip();
+  }
+
+  private static void writeFully(FileChannel ch, ByteBuffer buf, long position)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      position += ch.write(buf, position);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.example.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CliArgs {
+
+  private final Map<String, String> options;
+  private final List<String> positional;
+
+  private CliArgs(Map<String, String> options, List<String> positional) {
+    this.options = options;
+    this.positional = positional;
+  }
+
+  public static CliArgs parse(String[] args, int from) {
+    Map<String, String> options = new HashMap<>();
+    List<String> positional = new ArrayList<>();
+    for (int i = from; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.startsWith("--")) {
+        String name = arg.substring(2);
+        int eq = name.indexOf('=');
+        if (eq >= 0) {
+          options.put(name.substring(0, eq), name.substring(eq + 1));
+        } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+          options.put(name, args[++i]);
+        } else {
+          options.put(name, "true");
+        }
+      } else {
+        positional.add(arg);
+      }
+    }
+    return new CliArgs(options, positional);
+  }
+
+  public boolean has(String name) {
+    return options.containsKey(name);
+  }
+
+  public String get(String name, String defaultValue) {
+    return options.getOrDefault(name, defaultValue);
+  }
+
+  public int getInt(String name, int defaultValue) {
+    String value = options.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("--" + name + " expects a number, got: " + value);
+    }
+  }
+
+  public long getLong(String name, long defaultValue) {
+    String value = options.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("--" + name + " expects a number, got: " + value);
+    }
+  }
+
+  public List<String> positional() {
+    return positional;
+  }
+}
@@ -0,0 +1,56 @@
+package org.example.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Optional Deflate stage in front of chunked RSA. Compressed Base64 ciphertext starts with
+ * {@code "#deflate:"}; {@code '#'} and {@code ':'} are not Base64 characters, so the marker can
+ * never be mistaken for the start of an uncompressed file and decryption detects it on its own.
+ */
+public final class Compression {
+
+  /** Compression level meaning "do not compress". */
+  public static final int OFF = -1;
+  public static final int DEFAULT_LEVEL = 6;
+  static final byte[] MARKER = "#deflate:".getBytes(StandardCharsets.US_ASCII);
+
+  /** Plaintext bytes read versus bytes that went through RSA. */
+  public record Stats(long plainBytes, long encryptedBytes) {
+    public double ratio() {
+      return encryptedBytes == 0 ? 1 : (double) plainBytes / encryptedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s -> %s (%.1fx)", FileUtils.getFileSize(plainBytes),
+          FileUtils.getFileSize(encryptedBytes), ratio());
+    }
+  }
+
+  private Compression() {
+  }
+
+  static int checkLevel(int level) {
+    if (level != OFF && (level < 1 || level > 9)) {
+      throw new IllegalArgumentException("Compression level must be 1-9, got: " + level);
+    }
+    return level;
+  }
+
+  /**
+   * Consumes the marker if {@code in} starts with it, otherwise leaves the stream untouched.
+   * {@code in} must support mark/reset.
+   */
+  static boolean skipMarker(InputStream in) throws IOException {
+    in.mark(MARKER.length);
+    byte[] prefix = in.readNBytes(MARKER.length);
+    if (Arrays.equals(prefix, MARKER)) {
+      return true;
+    }
+    in.reset();
+    return false;
+  }
+}
@@ -0,0 +1,79 @@
+package org.example.utils;
+
+import java.security.Key;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.example.utils.OperationMetrics.Operation;
+
+/**
+ * JFR event around one RSA call, single-block or chunked. Callers go through
+ * {@link #beginIfEnabled()}, so no event object is allocated unless a recording has the event
+ * enabled, and fields are only filled in once the call passed its threshold.
+ */
+@Name("org.example.rsa.Crypto")
+@Label("RSA Operation")
+@Category({"RSA Encryption"})
+@Description("Encryption or decryption through RSAUtils / RsaEngine")
+@StackTrace(false)
+public final class CryptoEvent extends Event {
+
+  private static final EventType TYPE = EventType.getEventType(CryptoEvent.class);
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Transformation")
+  String transformation;
+
+  @Label("Key Size")
+  @Description("RSA modulus length in bits")
+  int keyBits;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  @Label("Blocks")
+  long blocks;
+
+  @Label("Success")
+  boolean success;
+
+  /** A begun event, or {@code null} while no recording has this event enabled. */
+  static CryptoEvent beginIfEnabled() {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    CryptoEvent event = new CryptoEvent();
+    event.begin();
+    return event;
+  }
+
+  /** Completes {@code event} unless {@link #beginIfEnabled()} returned {@code null}. */
+  static void complete(CryptoEvent event, Operation op, String transformation, Key key,
+      long bytes, long blocks, boolean success) {
+    if (event != null) {
+      event.complete(op, transformation, key, bytes, blocks, success);
+    }
+  }
+
+  private void complete(Operation op, String transformation, Key key, long bytes, long blocks,
+      boolean success) {
+    end();
+    if (shouldCommit()) {
+      this.operation = op.metricName();
+      this.transformation = transformation;
+      this.keyBits = RSAUtils.blockSize(key) * 8;
+      this.bytes = bytes;
+      this.blocks = blocks;
+      this.success = success;
+      commit();
+    }
+  }
+}
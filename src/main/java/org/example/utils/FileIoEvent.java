@@ -0,0 +1,120 @@
+package org.example.utils;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one application file read or write, from open to close. Unlike the JDK's
+ * own {@code jdk.FileRead} events, which fire per {@code read()} call, this covers the whole
+ * file so its duration lines up with the crypto events it feeds.
+ */
+@Name("org.example.rsa.FileIO")
+@Label("RSA File I/O")
+@Category({"RSA Encryption"})
+@Description("Plaintext and ciphertext files read or written by the application")
+@StackTrace(false)
+public final class FileIoEvent extends Event {
+
+  @Label("Path")
+  String path;
+
+  @Label("Write")
+  boolean write;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  public void complete(Path path, boolean write, long bytes) {
+    end();
+    if (shouldCommit()) {
+      this.path = path.toString();
+      this.write = write;
+      this.bytes = bytes;
+      commit();
+    }
+  }
+
+  /** Wraps {@code in} so that closing it commits a read event for {@code path}. */
+  public static InputStream reading(Path path, InputStream in) {
+    FileIoEvent event = new FileIoEvent();
+    if (!event.isEnabled()) {
+      return in;
+    }
+    event.begin();
+    return new FilterInputStream(in) {
+      private long count;
+
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          count++;
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+          count += n;
+        }
+        return n;
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          event.complete(path, false, count);
+        }
+      }
+    };
+  }
+
+  /** Wraps {@code out} so that closing it commits a write event for {@code path}. */
+  public static OutputStream writing(Path path, OutputStream out) {
+    FileIoEvent event = new FileIoEvent();
+    if (!event.isEnabled()) {
+      return out;
+    }
+    event.begin();
+    return new FilterOutputStream(out) {
+      private long count;
+
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          event.complete(path, true, count);
+        }
+      }
+    };
+  }
+}
@@ -23,8 +23,7 @@ public class FileUtils {
   public static List<Path> getFiles(Path dir, Set<String> exts) throws IOException {
     List<Path> files;
     try (Stream<Path> s = Files.list(dir)) {
-      files = s.filter(Files::isRegularFile)
-          .filter(p -> exts.isEmpty() || exts.contains(getFileExtension(p)))
+      files = s.filter(p -> matches(p, exts))
           .sorted(Comparator.comparing(p -> p.getFileName().toString().toLowerCase(Locale.ROOT)))
           .toList();
     }
@@ -32,6 +31,15 @@ public class FileUtils {
     return files;
   }
 
+  /** Lazily walks {@code dir} and its subdirectories; the caller must close the stream. */
+  public static Stream<Path> walkFiles(Path dir, Set<String> exts) throws IOException {
+    return Files.walk(dir).filter(p -> matches(p, exts));
+  }
+
+  private static boolean matches(Path p, Set<String> exts) {
+    return Files.isRegularFile(p) && (exts.isEmpty() || exts.contains(getFileExtension(p)));
+  }
+
   public static String getFileExtension(Path p) {
     String name = p.getFileName().toString();
     int dot = name.lastIndexOf('.');
@@ -0,0 +1,252 @@
+package org.example.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.example.utils.OperationMetrics.Operation;
+
+/**
+ * RSA-wrapped AES-GCM envelope: {@code int wrappedKeyLength | wrappedKey | segment...}.
+ * Segments are sealed separately under a nonce of (index, last flag), so both sides stream.
+ */
+public final class HybridUtils {
+
+  public static final String AES_TRANSFORMATION = "AES/GCM/NoPadding";
+  public static final int AES_KEY_SIZE = 256;
+  public static final int SEGMENT_SIZE = 64 * 1024;
+  private static final int TAG_BITS = 128;
+  private static final int TAG_SIZE = TAG_BITS / 8;
+  private static final int NONCE_SIZE = 12;
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private HybridUtils() {
+  }
+
+  public static String encryptToBase64(String plainText, PublicKey publicKey, Charset charset) {
+    return encryptToBase64(plainText, publicKey, charset, RSAUtils.defaultEngine());
+  }
+
+  public static String encryptToBase64(String plainText, PublicKey publicKey, RsaEngine engine) {
+    return encryptToBase64(plainText, publicKey, engine.charset(), engine);
+  }
+
+  private static String encryptToBase64(String plainText, PublicKey publicKey, Charset charset,
+      RsaEngine engine) {
+    if (charset == null) {
+      charset = StandardCharsets.UTF_8;
+    }
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      encryptToBase64(new ByteArrayInputStream(plainText.getBytes(charset)), baos, publicKey,
+          engine);
+      return baos.toString(StandardCharsets.US_ASCII);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public static String encryptToBase64(String plainText, PublicKey publicKey) {
+    return encryptToBase64(plainText, publicKey, StandardCharsets.UTF_8);
+  }
+
+  public static String decryptFromBase64(String base64Ciphertext, PrivateKey privateKey,
+      Charset charset) {
+    return decryptFromBase64(base64Ciphertext, privateKey, charset, RSAUtils.defaultEngine());
+  }
+
+  public static String decryptFromBase64(String base64Ciphertext, PrivateKey privateKey,
+      RsaEngine engine) {
+    return decryptFromBase64(base64Ciphertext, privateKey, engine.charset(), engine);
+  }
+
+  private static String decryptFromBase64(String base64Ciphertext, PrivateKey privateKey,
+      Charset charset, RsaEngine engine) {
+    if (charset == null) {
+      charset = StandardCharsets.UTF_8;
+    }
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      decryptFromBase64(
+          new ByteArrayInputStream(base64Ciphertext.getBytes(StandardCharsets.US_ASCII)), baos,
+          privateKey, engine);
+      return baos.toString(charset);
+    } catch (IOException e) {
+      throw new RuntimeException("Hybrid decryption failed", e);
+    }
+  }
+
+  public static String decryptFromBase64(String base64Ciphertext, PrivateKey privateKey) {
+    return decryptFromBase64(base64Ciphertext, privateKey, StandardCharsets.UTF_8);
+  }
+
+  public static void encryptToBase64(InputStream in, OutputStream out, PublicKey publicKey)
+      throws IOException {
+    encryptToBase64(in, out, publicKey, RSAUtils.defaultEngine());
+  }
+
+  public static void encryptToBase64(InputStream in, OutputStream out, PublicKey publicKey,
+      RsaEngine engine) throws IOException {
+    try (OutputStream b64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+      encrypt(in, b64, publicKey, engine);
+    }
+  }
+
+  public static void decryptFromBase64(InputStream in, OutputStream out, PrivateKey privateKey)
+      throws IOException {
+    decryptFromBase64(in, out, privateKey, RSAUtils.defaultEngine());
+  }
+
+  /** Skips a leading {@link KeyTag}; the caller already chose the key. */
+  public static void decryptFromBase64(InputStream in, OutputStream out, PrivateKey privateKey,
+      RsaEngine engine) throws IOException {
+    InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+    KeyTag.read(buffered);
+    decrypt(Base64.getDecoder().wrap(buffered), out, privateKey, engine);
+  }
+
+  public static long encrypt(InputStream in, OutputStream out, PublicKey publicKey)
+      throws IOException {
+    return encrypt(in, out, publicKey, RSAUtils.defaultEngine());
+  }
+
+  /**
+   * Wraps the session key with {@code engine}'s transformation and provider. Returns the number
+   * of plaintext bytes sealed, the same count {@link #decrypt} returns for the envelope.
+   */
+  public static long encrypt(InputStream in, OutputStream out, PublicKey publicKey,
+      RsaEngine engine) throws IOException {
+    long start = OperationMetrics.start();
+    try {
+      SecretKey sessionKey = newSessionKey();
+      Cipher rsa = engine.cipher(Cipher.ENCRYPT_MODE, publicKey);
+      byte[] wrappedKey = rsa.doFinal(sessionKey.getEncoded());
+
+      DataOutputStream dos = new DataOutputStream(out);
+      dos.writeInt(wrappedKey.length);
+      dos.write(wrappedKey);
+      long bytes = sealSegments(in, dos, sessionKey);
+      dos.flush();
+      OperationMetrics.success(Operation.ENCRYPT_HYBRID, start, bytes, 0);
+      return bytes;
+
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      OperationMetrics.failure(Operation.ENCRYPT_HYBRID);
+      throw new RuntimeException("Hybrid encryption failed", e);
+    } catch (IOException | RuntimeException e) {
+      OperationMetrics.failure(Operation.ENCRYPT_HYBRID);
+      throw e;
+    }
+  }
+
+  public static long decrypt(InputStream in, OutputStream out, PrivateKey privateKey)
+      throws IOException {
+    return decrypt(in, out, privateKey, RSAUtils.defaultEngine());
+  }
+
+  /** Returns the number of plaintext bytes recovered. */
+  public static long decrypt(InputStream in, OutputStream out, PrivateKey privateKey,
+      RsaEngine engine) throws IOException {
+    long start = OperationMetrics.start();
+    try {
+      DataInputStream dis = new DataInputStream(in);
+      int wrappedLength = dis.readInt();
+      if (wrappedLength <= 0 || wrappedLength > 8192) {
+        throw new IllegalArgumentException("Invalid wrapped key length: " + wrappedLength);
+      }
+      byte[] wrappedKey = dis.readNBytes(wrappedLength);
+      if (wrappedKey.length != wrappedLength) {
+        throw new EOFException("Truncated wrapped key");
+      }
+      Cipher rsa = engine.cipher(Cipher.DECRYPT_MODE, privateKey);
+      SecretKey sessionKey = new SecretKeySpec(rsa.doFinal(wrappedKey), "AES");
+
+      long bytes = openSegments(dis, out, sessionKey);
+      OperationMetrics.success(Operation.DECRYPT_HYBRID, start, bytes, 0);
+      return bytes;
+
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      OperationMetrics.failure(Operation.DECRYPT_HYBRID);
+      throw new RuntimeException("Hybrid decryption failed", e);
+    } catch (IOException | RuntimeException e) {
+      OperationMetrics.failure(Operation.DECRYPT_HYBRID);
+      throw e;
+    }
+  }
+
+  static SecretKey newSessionKey() throws GeneralSecurityException {
+    KeyGenerator kg = KeyGenerator.getInstance("AES");
+    kg.init(AES_KEY_SIZE, RANDOM);
+    return kg.generateKey();
+  }
+
+  static long sealSegments(InputStream in, OutputStream out, SecretKey sessionKey)
+      throws IOException, GeneralSecurityException {
+    byte[] plain = new byte[SEGMENT_SIZE];
+    byte[] sealed = new byte[SEGMENT_SIZE + TAG_SIZE];
+    long index = 0;
+    long total = 0;
+    while (true) {
+      int len = in.readNBytes(plain, 0, SEGMENT_SIZE);
+      total += len;
+      boolean last = len < SEGMENT_SIZE;
+      Cipher aes = CipherCache.cipher(AES_TRANSFORMATION, Cipher.ENCRYPT_MODE, sessionKey,
+          new GCMParameterSpec(TAG_BITS, nonce(index++, last)));
+      int written = aes.doFinal(plain, 0, len, sealed, 0);
+      out.write(sealed, 0, written);
+      if (last) {
+        return total;
+      }
+    }
+  }
+
+  static long openSegments(InputStream in, OutputStream out, SecretKey sessionKey)
+      throws IOException, GeneralSecurityException {
+    byte[] sealed = new byte[SEGMENT_SIZE + TAG_SIZE];
+    byte[] plain = new byte[SEGMENT_SIZE + TAG_SIZE];
+    long index = 0;
+    long total = 0;
+    while (true) {
+      int len = in.readNBytes(sealed, 0, sealed.length);
+      boolean last = len < sealed.length;
+      if (len < TAG_SIZE) {
+        throw new EOFException("Truncated hybrid ciphertext");
+      }
+      Cipher aes = CipherCache.cipher(AES_TRANSFORMATION, Cipher.DECRYPT_MODE, sessionKey,
+          new GCMParameterSpec(TAG_BITS, nonce(index++, last)));
+      int written = aes.doFinal(sealed, 0, len, plain, 0);
+      out.write(plain, 0, written);
+      total += written;
+      if (last) {
+        out.flush();
+        return total;
+      }
+    }
+  }
+
+  private static byte[] nonce(long index, boolean last) {
+    byte[] nonce = new byte[NONCE_SIZE];
+    for (int i = 0; i < Long.BYTES; i++) {
+      nonce[i] = (byte) (index >>> (56 - 8 * i));
+    }
+    nonce[NONCE_SIZE - 1] = (byte) (last ? 1 : 0);
+    return nonce;
+  }
+}
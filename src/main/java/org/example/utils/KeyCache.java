@@ -0,0 +1,108 @@
+package org.example.utils;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public final class KeyCache<K extends Key> {
+
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+  public record Stats(int size, long hits, long misses, long evictions, long expirations) {}
+
+  // lookups never lock the whole cache; concurrent misses on one key parse it only once
+  private final Map<String, Entry<K>> entries = new ConcurrentHashMap<>();
+  private final Object evictLock = new Object();
+  private volatile int maxEntries;
+  private volatile long ttlNanos;
+
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  public KeyCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+  }
+
+  public KeyCache(int maxEntries, Duration ttl) {
+    configure(maxEntries, ttl);
+  }
+
+  public void configure(int maxEntries, Duration ttl) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("Key cache size must be at least 1");
+    }
+    if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+      throw new IllegalArgumentException("Key cache TTL must be positive");
+    }
+    this.maxEntries = maxEntries;
+    this.ttlNanos = ttl.toNanos();
+    evictOverflow();
+  }
+
+  public K get(String fingerprint, Function<String, K> loader) {
+    long now = System.nanoTime();
+    lookups.increment();
+    Entry<K> entry = entries.get(fingerprint);
+    if (entry != null && now - entry.loadedAt >= ttlNanos
+        && entries.remove(fingerprint, entry)) {
+      expirations.increment();
+    }
+    entry = entries.computeIfAbsent(fingerprint, fp -> {
+      misses.increment();
+      return new Entry<>(loader.apply(fp), now);
+    });
+    entry.lastUsed = now;
+    if (entries.size() > maxEntries) {
+      evictOverflow();
+    }
+    return entry.key;
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public Stats stats() {
+    long missCount = misses.sum();
+    return new Stats(entries.size(), lookups.sum() - missCount, missCount, evictions.sum(),
+        expirations.sum());
+  }
+
+  /** Drops least recently used entries; only runs when the cache is over its limit. */
+  private void evictOverflow() {
+    synchronized (evictLock) {
+      while (entries.size() > maxEntries) {
+        Map.Entry<String, Entry<K>> oldest = null;
+        for (Map.Entry<String, Entry<K>> e : entries.entrySet()) {
+          if (oldest == null || e.getValue().lastUsed < oldest.getValue().lastUsed) {
+            oldest = e;
+          }
+        }
+        if (oldest == null) {
+          return;
+        }
+        if (entries.remove(oldest.getKey(), oldest.getValue())) {
+          evictions.increment();
+        }
+      }
+    }
+  }
+
+  private static final class Entry<K> {
+    private final K key;
+    private final long loadedAt;
+    private volatile long lastUsed;
+
+    private Entry(K key, long loadedAt) {
+      this.key = key;
+      this.loadedAt = loadedAt;
+      this.lastUsed = loadedAt;
+    }
+  }
+}
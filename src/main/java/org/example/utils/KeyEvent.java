@@ -0,0 +1,53 @@
+package org.example.utils;
+
+import java.nio.file.Path;
+import java.security.PublicKey;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** JFR event for generating, loading, importing or rotating an RSA key pair. */
+@Name("org.example.rsa.Key")
+@Label("RSA Key Operation")
+@Category({"RSA Encryption"})
+@Description("Key generation and key loading in RSAUtils, RsaEngine and KeyStoreService")
+public final class KeyEvent extends Event {
+
+  public enum Action { GENERATE, LOAD, IMPORT, ROTATE }
+
+  @Label("Action")
+  String action;
+
+  @Label("Key ID")
+  String keyId;
+
+  @Label("Key Size")
+  @Description("RSA modulus length in bits")
+  int keyBits;
+
+  @Label("Path")
+  String path;
+
+  @Label("Success")
+  boolean success;
+
+  /**
+   * {@code publicKey} and {@code path} may be {@code null}; the key ID is only hashed when the
+   * event is actually recorded.
+   */
+  public void complete(Action action, PublicKey publicKey, Path path, boolean success) {
+    end();
+    if (shouldCommit()) {
+      this.action = action.name();
+      if (publicKey != null) {
+        this.keyId = KeyTag.idOf(publicKey);
+        this.keyBits = RSAUtils.blockSize(publicKey) * 8;
+      }
+      this.path = path == null ? null : path.toString();
+      this.success = success;
+      commit();
+    }
+  }
+}
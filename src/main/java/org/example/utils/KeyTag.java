@@ -0,0 +1,97 @@
+package org.example.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PublicKey;
+
+/**
+ * Key ID prefix for Base64 ciphertext files: {@code "#key=" + 16 hex chars + ":"}. The key ID is
+ * the first 64 bits of the public key's SHA-256 fingerprint, so it can be computed from the key
+ * alone and the keystore resolves it with a single map lookup. Like the compression marker the
+ * tag starts with a non-Base64 character, so untagged files are never misread.
+ */
+public final class KeyTag {
+
+  public static final int ID_LENGTH = 16;
+  private static final byte[] PREFIX = "#key=".getBytes(StandardCharsets.US_ASCII);
+  private static final byte SUFFIX = ':';
+  /** Bytes a tag occupies at the start of a file. */
+  public static final int LENGTH = PREFIX.length + ID_LENGTH + 1;
+
+  private KeyTag() {
+  }
+
+  public static String idOf(PublicKey publicKey) {
+    return idOf(RSAUtils.fingerprint(publicKey));
+  }
+
+  public static String idOf(String fingerprint) {
+    return fingerprint.substring(0, ID_LENGTH);
+  }
+
+  public static void write(OutputStream out, String keyId) throws IOException {
+    if (!isValidId(keyId)) {
+      throw new IllegalArgumentException("Invalid key ID: " + keyId);
+    }
+    out.write(PREFIX);
+    out.write(keyId.getBytes(StandardCharsets.US_ASCII));
+    out.write(SUFFIX);
+  }
+
+  /**
+   * Consumes and returns the key ID if {@code in} starts with a tag, otherwise returns
+   * {@code null} and leaves the stream untouched. {@code in} must support mark/reset.
+   */
+  public static String read(InputStream in) throws IOException {
+    in.mark(LENGTH);
+    String keyId = parse(in.readNBytes(LENGTH));
+    if (keyId == null) {
+      in.reset();
+    }
+    return keyId;
+  }
+
+  /** The key ID at the start of {@code file}, or {@code null} when it is untagged. */
+  public static String read(Path file) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      return parse(in.readNBytes(LENGTH));
+    }
+  }
+
+  /** {@code text} without its leading tag, if it has one. */
+  public static String strip(String text) {
+    return text.length() >= LENGTH
+        && parse(text.substring(0, LENGTH).getBytes(StandardCharsets.US_ASCII)) != null
+        ? text.substring(LENGTH) : text;
+  }
+
+  /** The key ID in the first {@link #LENGTH} bytes of a file, or {@code null}. */
+  public static String parse(byte[] prefix) {
+    if (prefix.length < LENGTH || prefix[LENGTH - 1] != SUFFIX) {
+      return null;
+    }
+    for (int i = 0; i < PREFIX.length; i++) {
+      if (prefix[i] != PREFIX[i]) {
+        return null;
+      }
+    }
+    String keyId = new String(prefix, PREFIX.length, ID_LENGTH, StandardCharsets.US_ASCII);
+    return isValidId(keyId) ? keyId : null;
+  }
+
+  public static boolean isValidId(String keyId) {
+    if (keyId == null || keyId.length() != ID_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < ID_LENGTH; i++) {
+      if (Character.digit(keyId.charAt(i), 16) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
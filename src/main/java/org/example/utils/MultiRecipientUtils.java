@@ -0,0 +1,197 @@
+package org.example.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.example.utils.OperationMetrics.Operation;
+
+/**
+ * One payload for several recipients: {@code "RSAM" | version | short recipientCount |
+ * (sha256(public key) | short wrappedKeyLength | wrappedKey)... | segment...}. The payload is
+ * sealed once under a random AES-GCM session key exactly like {@link HybridUtils}; only the
+ * session key is RSA-wrapped per recipient, so adding a recipient costs one RSA operation.
+ */
+public final class MultiRecipientUtils {
+
+  public static final byte VERSION = 1;
+  public static final int MAX_RECIPIENTS = 1024;
+  private static final byte[] MAGIC = {'R', 'S', 'A', 'M'};
+  private static final int FINGERPRINT_SIZE = 32;
+  private static final int MAX_WRAPPED_KEY = 8192;
+
+  private MultiRecipientUtils() {
+  }
+
+  public static void encryptToBase64(InputStream in, OutputStream out,
+      List<PublicKey> recipients, RsaEngine engine) throws IOException {
+    try (OutputStream b64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+      encrypt(in, b64, recipients, engine);
+    }
+  }
+
+  /** Skips a leading {@link KeyTag}; the recipient is found by fingerprint instead. */
+  public static void decryptFromBase64(InputStream in, OutputStream out, PrivateKey privateKey,
+      RsaEngine engine) throws IOException {
+    InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+    KeyTag.read(buffered);
+    decrypt(Base64.getDecoder().wrap(buffered), out, privateKey, engine);
+  }
+
+  public static String encryptToBase64(String plainText, List<PublicKey> recipients,
+      RsaEngine engine) {
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      encryptToBase64(new ByteArrayInputStream(plainText.getBytes(engine.charset())), baos,
+          recipients, engine);
+      return baos.toString(StandardCharsets.US_ASCII);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Seals {@code in} once and wraps the session key for every recipient. Recipients with the
+   * same fingerprint are wrapped only once. Returns the number of plaintext bytes sealed, as
+   * {@link #decrypt} does.
+   */
+  public static long encrypt(InputStream in, OutputStream out, List<PublicKey> recipients,
+      RsaEngine engine) throws IOException {
+    long start = OperationMetrics.start();
+    try {
+      Map<String, PublicKey> unique = new LinkedHashMap<>();
+      for (PublicKey recipient : recipients) {
+        unique.putIfAbsent(RSAUtils.fingerprint(recipient), recipient);
+      }
+      if (unique.isEmpty() || unique.size() > MAX_RECIPIENTS) {
+        throw new IllegalArgumentException(
+            "Need 1-" + MAX_RECIPIENTS + " recipients, got " + unique.size());
+      }
+      SecretKey sessionKey = HybridUtils.newSessionKey();
+
+      DataOutputStream dos = new DataOutputStream(out);
+      dos.write(MAGIC);
+      dos.writeByte(VERSION);
+      dos.writeShort(unique.size());
+      for (Map.Entry<String, PublicKey> recipient : unique.entrySet()) {
+        byte[] wrappedKey = engine.cipher(Cipher.ENCRYPT_MODE, recipient.getValue())
+            .doFinal(sessionKey.getEncoded());
+        dos.write(HexFormat.of().parseHex(recipient.getKey()));
+        dos.writeShort(wrappedKey.length);
+        dos.write(wrappedKey);
+      }
+      long bytes = HybridUtils.sealSegments(in, dos, sessionKey);
+      dos.flush();
+      OperationMetrics.success(Operation.ENCRYPT_MULTI, start, bytes, unique.size());
+      return bytes;
+
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      OperationMetrics.failure(Operation.ENCRYPT_MULTI);
+      throw new RuntimeException("Multi-recipient encryption failed", e);
+    } catch (IOException | RuntimeException e) {
+      OperationMetrics.failure(Operation.ENCRYPT_MULTI);
+      throw e;
+    }
+  }
+
+  /**
+   * Finds the wrapped key matching {@code privateKey} by fingerprint, unwraps it and opens the
+   * payload. Only that one entry is RSA-decrypted, whatever the number of recipients.
+   */
+  public static long decrypt(InputStream in, OutputStream out, PrivateKey privateKey,
+      RsaEngine engine) throws IOException {
+    long start = OperationMetrics.start();
+    try {
+      DataInputStream dis = new DataInputStream(in);
+      byte[] ownFingerprint =
+          HexFormat.of().parseHex(RSAUtils.fingerprint(publicKeyOf(privateKey)));
+      byte[] wrappedKey = null;
+      for (Recipient recipient : readHeader(dis)) {
+        if (Arrays.equals(recipient.fingerprint, ownFingerprint)) {
+          wrappedKey = recipient.wrappedKey;
+        }
+      }
+      if (wrappedKey == null) {
+        throw new IllegalArgumentException("This private key is not among the recipients");
+      }
+      SecretKey sessionKey = new SecretKeySpec(
+          engine.cipher(Cipher.DECRYPT_MODE, privateKey).doFinal(wrappedKey), "AES");
+
+      long bytes = HybridUtils.openSegments(dis, out, sessionKey);
+      OperationMetrics.success(Operation.DECRYPT_MULTI, start, bytes, 1);
+      return bytes;
+
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      OperationMetrics.failure(Operation.DECRYPT_MULTI);
+      throw new RuntimeException("Multi-recipient decryption failed", e);
+    } catch (IOException | RuntimeException e) {
+      OperationMetrics.failure(Operation.DECRYPT_MULTI);
+      throw e;
+    }
+  }
+
+  private record Recipient(byte[] fingerprint, byte[] wrappedKey) {}
+
+  private static List<Recipient> readHeader(DataInputStream dis) throws IOException {
+    byte[] magic = dis.readNBytes(MAGIC.length);
+    if (!Arrays.equals(magic, MAGIC)) {
+      throw new IllegalArgumentException("Not a multi-recipient ciphertext");
+    }
+    int version = dis.readByte();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported multi-recipient version: " + version);
+    }
+    int count = dis.readUnsignedShort();
+    if (count == 0 || count > MAX_RECIPIENTS) {
+      throw new IllegalArgumentException("Invalid recipient count: " + count);
+    }
+    List<Recipient> recipients = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] fingerprint = readExactly(dis, FINGERPRINT_SIZE);
+      int wrappedLength = dis.readUnsignedShort();
+      if (wrappedLength == 0 || wrappedLength > MAX_WRAPPED_KEY) {
+        throw new IllegalArgumentException("Invalid wrapped key length: " + wrappedLength);
+      }
+      recipients.add(new Recipient(fingerprint, readExactly(dis, wrappedLength)));
+    }
+    return recipients;
+  }
+
+  private static byte[] readExactly(InputStream in, int length) throws IOException {
+    byte[] bytes = in.readNBytes(length);
+    if (bytes.length != length) {
+      throw new EOFException("Truncated recipient header");
+    }
+    return bytes;
+  }
+
+  private static PublicKey publicKeyOf(PrivateKey privateKey) throws GeneralSecurityException {
+    if (!(privateKey instanceof RSAPrivateCrtKey crt)) {
+      throw new IllegalArgumentException(
+          "Private key does not carry its public exponent, cannot match a recipient");
+    }
+    return CipherCache.keyFactory("RSA")
+        .generatePublic(new RSAPublicKeySpec(crt.getModulus(), crt.getPublicExponent()));
+  }
+}
@@ -0,0 +1,91 @@
+package org.example.utils;
+
+import static org.example.utils.AppLogger.LOG;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class OperationMetrics {
+
+  public static final String JMX_DOMAIN = "org.example.rsa";
+
+  public enum Operation {
+    ENCRYPT_SINGLE("encrypt.single"),
+    DECRYPT_SINGLE("decrypt.single"),
+    ENCRYPT_CHUNKED("encrypt.chunked"),
+    DECRYPT_CHUNKED("decrypt.chunked"),
+    ENCRYPT_HYBRID("encrypt.hybrid"),
+    DECRYPT_HYBRID("decrypt.hybrid"),
+    ENCRYPT_MULTI("encrypt.multi"),
+    DECRYPT_MULTI("decrypt.multi"),
+    KEY_LOAD("key.load"),
+    KEY_GENERATE("key.generate");
+
+    private final String metricName;
+
+    Operation(String metricName) {
+      this.metricName = metricName;
+    }
+
+    public String metricName() {
+      return metricName;
+    }
+  }
+
+  private static final Map<Operation, OperationStats> STATS = new EnumMap<>(Operation.class);
+
+  static {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (Operation op : Operation.values()) {
+      OperationStats stats = new OperationStats(op.metricName());
+      STATS.put(op, stats);
+      try {
+        ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + op.metricName());
+        if (!server.isRegistered(name)) {
+          server.registerMBean(stats, name);
+        }
+      } catch (JMException e) {
+        LOG.warning(String.format("Could not register MBean for %s: %s", op.metricName(),
+            e.getMessage()));
+      }
+    }
+  }
+
+  private OperationMetrics() {
+  }
+
+  public static long start() {
+    return System.nanoTime();
+  }
+
+  public static void success(Operation op, long startNanos, long bytes, long blocks) {
+    STATS.get(op).record(System.nanoTime() - startNanos, bytes, blocks);
+  }
+
+  public static void failure(Operation op) {
+    STATS.get(op).recordError();
+  }
+
+  public static OperationStats stats(Operation op) {
+    return STATS.get(op);
+  }
+
+  public static String dump() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format(Locale.ROOT, "%-16s %8s %6s %12s %8s %10s %10s %10s %10s%n",
+        "operation", "count", "errors", "bytes", "blocks", "mean(us)", "p50(us)", "p99(us)",
+        "max(us)"));
+    for (OperationStats s : STATS.values()) {
+      sb.append(String.format(Locale.ROOT,
+          "%-16s %8d %6d %12d %8d %10.1f %10.1f %10.1f %10.1f%n",
+          s.getName(), s.getCount(), s.getErrors(), s.getBytes(), s.getBlocks(),
+          s.getMeanMicros(), s.getP50Micros(), s.getP99Micros(), s.getMaxMicros()));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,118 @@
+package org.example.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class OperationStats implements OperationStatsMBean {
+
+  // bucket i counts latencies in [2^i, 2^(i+1)) nanoseconds
+  private static final int BUCKETS = 48;
+
+  private final String name;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder blocks = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+  OperationStats(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  void record(long nanos, long byteCount, long blockCount) {
+    count.increment();
+    bytes.add(byteCount);
+    blocks.add(blockCount);
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+    int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+    histogram.incrementAndGet(bucket);
+  }
+
+  void recordError() {
+    errors.increment();
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  @Override
+  public long getBlocks() {
+    return blocks.sum();
+  }
+
+  @Override
+  public double getMeanMicros() {
+    long n = count.sum();
+    return n == 0 ? 0 : totalNanos.sum() / (n * 1000.0);
+  }
+
+  @Override
+  public double getP50Micros() {
+    return percentile(0.50);
+  }
+
+  @Override
+  public double getP99Micros() {
+    return percentile(0.99);
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return maxNanos.get() / 1000.0;
+  }
+
+  @Override
+  public void reset() {
+    count.reset();
+    errors.reset();
+    bytes.reset();
+    blocks.reset();
+    totalNanos.reset();
+    maxNanos.reset();
+    for (int i = 0; i < BUCKETS; i++) {
+      histogram.set(i, 0);
+    }
+  }
+
+  private double percentile(double p) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = histogram.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(p * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        // report the bucket's upper bound, capped by the observed maximum
+        return Math.min(1L << (i + 1), maxNanos.get()) / 1000.0;
+      }
+    }
+    return getMaxMicros();
+  }
+}
@@ -0,0 +1,22 @@
+package org.example.utils;
+
+public interface OperationStatsMBean {
+
+  long getCount();
+
+  long getErrors();
+
+  long getBytes();
+
+  long getBlocks();
+
+  double getMeanMicros();
+
+  double getP50Micros();
+
+  double getP99Micros();
+
+  double getMaxMicros();
+
+  void reset();
+}
@@ -1,11 +1,16 @@
 package org.example.utils;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.*;
+import java.security.interfaces.RSAKey;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import javax.crypto.Cipher;
@@ -13,52 +18,142 @@ import java.nio.charset.StandardCharsets;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.example.utils.OperationMetrics.Operation;
 
 public final class RSAUtils {
 
   public static final int DEFAULT_KEY_SIZE = 2048;
   public static final String DEFAULT_TRANSFORMATION = "RSA/ECB/PKCS1Padding";
-  private static String transformation = DEFAULT_TRANSFORMATION;
+  private static volatile RsaEngine defaultEngine = new RsaEngine();
+  private static final int BLOCKS_PER_WORKER = 64;
+  private static volatile int parallelism = Runtime.getRuntime().availableProcessors();
+  private static volatile ForkJoinPool pool;
+  private static final KeyCache<PublicKey> PUBLIC_KEYS = new KeyCache<>();
+  private static final KeyCache<PrivateKey> PRIVATE_KEYS = new KeyCache<>();
 
 
   private RSAUtils() {
   }
 
+  /** Replaces the engine behind the static methods; instances built earlier are unaffected. */
   public static void setTransformation(String transformation) {
-    if (transformation == null || transformation.isBlank()) {
-      throw new IllegalArgumentException("Transformation must not be null or blank");
+    defaultEngine = defaultEngine.withTransformation(transformation);
+  }
+
+  public static String getTransformation() {
+    return defaultEngine.transformation();
+  }
+
+  public static void setDefaultEngine(RsaEngine engine) {
+    defaultEngine = Objects.requireNonNull(engine, "engine");
+  }
+
+  /** The engine used by the static convenience methods of this class. */
+  public static RsaEngine defaultEngine() {
+    return defaultEngine;
+  }
+
+  public static synchronized void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1");
     }
-    RSAUtils.transformation = transformation;
+    if (pool != null && pool.getParallelism() != parallelism) {
+      // not shut down: a chunked call may still be running on it, and its idle workers exit on
+      // their own once that call is done
+      pool = null;
+    }
+    RSAUtils.parallelism = parallelism;
+  }
+
+  public static int getParallelism() {
+    return parallelism;
+  }
+
+  private static ForkJoinPool pool() {
+    ForkJoinPool current = pool;
+    if (current == null) {
+      synchronized (RSAUtils.class) {
+        current = pool;
+        if (current == null) {
+          current = new ForkJoinPool(parallelism);
+          pool = current;
+        }
+      }
+    }
+    return current;
   }
 
 
   public static KeyPair generateKeyPair(int keySize) {
+    long start = OperationMetrics.start();
+    KeyEvent event = new KeyEvent();
+    event.begin();
     try {
       KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
       kpg.initialize(keySize);
-      return kpg.generateKeyPair();
-    } catch (GeneralSecurityException e) {
+      KeyPair keyPair = kpg.generateKeyPair();
+      OperationMetrics.success(Operation.KEY_GENERATE, start, 0, 0);
+      event.complete(KeyEvent.Action.GENERATE, keyPair.getPublic(), null, true);
+      return keyPair;
+    } catch (GeneralSecurityException | RuntimeException e) {
+      OperationMetrics.failure(Operation.KEY_GENERATE);
+      event.complete(KeyEvent.Action.GENERATE, null, null, false);
       throw new RuntimeException("Failed to generate RSA key pair", e);
     }
   }
 
-  public static String encryptToBase64(String plainText, PublicKey publicKey, Charset charset) {
-    try {
-      if (charset == null) {
-        charset = StandardCharsets.UTF_8;
-      }
+  /**
+   * Encrypts the remaining bytes of {@code in} as one RSA block into {@code out}. Both buffers
+   * may be heap or direct; {@code out} needs {@link #encryptOutputSize(Key)} bytes remaining.
+   * Returns the number of bytes written. Neither buffer is retained, so callers can reuse them
+   * for the next message.
+   */
+  public static int encrypt(ByteBuffer in, ByteBuffer out, PublicKey publicKey) {
+    return defaultEngine.encrypt(in, out, publicKey);
+  }
 
-      Cipher cipher = Cipher.getInstance(transformation);
-      cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+  /**
+   * Decrypts one RSA block from {@code in} into {@code out}. The provider checks the output
+   * against the worst case, so {@code out} needs {@link #decryptOutputSize(Key)} bytes remaining
+   * even though fewer are written. Returns the number of plaintext bytes.
+   */
+  public static int decrypt(ByteBuffer in, ByteBuffer out, PrivateKey privateKey) {
+    return defaultEngine.decrypt(in, out, privateKey);
+  }
 
-      byte[] inputBytes = plainText.getBytes(charset);
-      byte[] encrypted = cipher.doFinal(inputBytes);
+  public static byte[] encrypt(byte[] plainBytes, PublicKey publicKey) {
+    return defaultEngine.encrypt(plainBytes, publicKey);
+  }
 
-      return Base64.getEncoder().encodeToString(encrypted);
+  public static byte[] decrypt(byte[] cipherBytes, PrivateKey privateKey) {
+    return defaultEngine.decrypt(cipherBytes, privateKey);
+  }
 
-    } catch (GeneralSecurityException e) {
-      throw new RuntimeException("RSA encryption failed", e);
+  /** Output bytes needed by {@link #encrypt(ByteBuffer, ByteBuffer, PublicKey)}. */
+  public static int encryptOutputSize(Key key) {
+    return blockSize(key);
+  }
+
+  /** Output bytes needed by {@link #decrypt(ByteBuffer, ByteBuffer, PrivateKey)}. */
+  public static int decryptOutputSize(Key key) {
+    return blockSize(key);
+  }
+
+  /** Largest plaintext that fits a single block with the current transformation. */
+  public static int maxPlainSize(Key key) {
+    return defaultEngine.maxPlainSize(key);
+  }
+
+  public static String encryptToBase64(String plainText, PublicKey publicKey, Charset charset) {
+    if (charset == null) {
+      charset = StandardCharsets.UTF_8;
     }
+    byte[] encrypted = encrypt(plainText.getBytes(charset), publicKey);
+    return Base64.getEncoder().encodeToString(encrypted);
   }
 
   public static String encryptToBase64(String plainText, PublicKey publicKey) {
@@ -67,20 +162,20 @@ public final class RSAUtils {
 
   public static String decryptFromBase64(String base64Ciphertext, PrivateKey privateKey,
       Charset charset) {
+    if (charset == null) {
+      charset = StandardCharsets.UTF_8;
+    }
+    byte[] ct;
     try {
-      if (charset == null) {
-        charset = StandardCharsets.UTF_8;
-      }
-
-      byte[] ct = Base64.getDecoder().decode(base64Ciphertext);
-      Cipher cipher = Cipher.getInstance(transformation);
-      cipher.init(Cipher.DECRYPT_MODE, privateKey);
-      byte[] pt = cipher.doFinal(ct);
-      return new String(pt, charset);
-    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      ct = Base64.getDecoder().decode(base64Ciphertext);
+    } catch (IllegalArgumentException e) {
+      OperationMetrics.failure(Operation.DECRYPT_SINGLE);
+      CryptoEvent.complete(CryptoEvent.beginIfEnabled(), Operation.DECRYPT_SINGLE,
+          getTransformation(), privateKey, 0, 0, false);
       throw new RuntimeException(
           "RSA decryption failed (is the ciphertext Base64 and matching the transformation?)", e);
     }
+    return new String(decrypt(ct, privateKey), charset);
   }
 
   public static String decryptFromBase64(String base64Ciphertext, PrivateKey privateKey) {
@@ -90,37 +185,44 @@ public final class RSAUtils {
   public static String encryptLargeToBase64(String plainText,
       PublicKey publicKey,
       Charset charset) {
+    if (charset == null) {
+      charset = StandardCharsets.UTF_8;
+    }
     try {
-      if (charset == null) {
-        charset = StandardCharsets.UTF_8;
-      }
-      if (transformation == null || transformation.isBlank()) {
-        transformation = DEFAULT_TRANSFORMATION;
-      }
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      encryptLargeToBase64(new ByteArrayInputStream(plainText.getBytes(charset)), baos, publicKey);
+      return baos.toString(StandardCharsets.US_ASCII);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
 
-      byte[] input = plainText.getBytes(charset);
+  public static Compression.Stats encryptLargeToBase64(InputStream in, OutputStream out,
+      PublicKey publicKey) throws IOException {
+    return defaultEngine.encryptLargeToBase64(in, out, publicKey);
+  }
+
+  public static long encryptLarge(InputStream in, OutputStream out, PublicKey publicKey)
+      throws IOException {
+    return defaultEngine.encryptLarge(in, out, publicKey);
+  }
 
-      Cipher cipher = Cipher.getInstance(transformation);
-      cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+  public static long encryptLarge(InputStream in, OutputStream out, PublicKey publicKey,
+      String transformation) throws IOException {
+    return encryptLarge(in, out, publicKey, transformation, null);
+  }
 
+  static long encryptLarge(InputStream in, OutputStream out, PublicKey publicKey,
+      String transformation, String provider) throws IOException {
+    try {
       int keySizeBytes = ((RSAPublicKey) publicKey).getModulus().bitLength() / 8;
       int maxPlainBlockSize = maxPlainBlockSize(keySizeBytes, transformation);
 
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-      for (int offset = 0; offset < input.length; offset += maxPlainBlockSize) {
-        int len = Math.min(maxPlainBlockSize, input.length - offset);
-        byte[] block = cipher.doFinal(input, offset, len);
-        baos.write(block);
-      }
-
-      byte[] allEncrypted = baos.toByteArray();
-      return Base64.getEncoder().encodeToString(allEncrypted);
+      return processBlocks(in, out, transformation, provider, Cipher.ENCRYPT_MODE, publicKey,
+          maxPlainBlockSize, keySizeBytes, Operation.ENCRYPT_CHUNKED);
 
     } catch (GeneralSecurityException e) {
       throw new RuntimeException("RSA chunked encryption failed", e);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
     }
   }
 
@@ -132,42 +234,168 @@ public final class RSAUtils {
   public static String decryptLargeFromBase64(String base64Ciphertext,
       PrivateKey privateKey,
       Charset charset) {
+    if (charset == null) {
+      charset = StandardCharsets.UTF_8;
+    }
     try {
-      if (charset == null) {
-        charset = StandardCharsets.UTF_8;
-      }
-      if (transformation == null || transformation.isBlank()) {
-        transformation = DEFAULT_TRANSFORMATION;
-      }
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      decryptLargeFromBase64(
+          new ByteArrayInputStream(base64Ciphertext.getBytes(StandardCharsets.US_ASCII)), baos,
+          privateKey);
+      return baos.toString(charset);
+    } catch (IOException e) {
+      throw new RuntimeException("RSA chunked decryption failed", e);
+    }
+  }
+
+  public static void decryptLargeFromBase64(InputStream in, OutputStream out,
+      PrivateKey privateKey) throws IOException {
+    defaultEngine.decryptLargeFromBase64(in, out, privateKey);
+  }
 
-      byte[] data = Base64.getDecoder().decode(base64Ciphertext);
+  public static long decryptLarge(InputStream in, OutputStream out, PrivateKey privateKey)
+      throws IOException {
+    return defaultEngine.decryptLarge(in, out, privateKey);
+  }
 
-      Cipher cipher = Cipher.getInstance(transformation);
-      cipher.init(Cipher.DECRYPT_MODE, privateKey);
+  public static long decryptLarge(InputStream in, OutputStream out, PrivateKey privateKey,
+      String transformation) throws IOException {
+    return decryptLarge(in, out, privateKey, transformation, null);
+  }
 
+  static long decryptLarge(InputStream in, OutputStream out, PrivateKey privateKey,
+      String transformation, String provider) throws IOException {
+    try {
       int keySizeBytes = ((RSAPrivateKey) privateKey).getModulus().bitLength() / 8;
 
-      if (data.length % keySizeBytes != 0) {
-        throw new IllegalArgumentException(
-            "Ciphertext length (" + data.length + ") is not a multiple of block size ("
-                + keySizeBytes + ")"
-        );
-      }
+      return processBlocks(in, out, transformation, provider, Cipher.DECRYPT_MODE, privateKey,
+          keySizeBytes, keySizeBytes, Operation.DECRYPT_CHUNKED);
 
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new RuntimeException("RSA chunked decryption failed", e);
+    }
+  }
 
-      for (int offset = 0; offset < data.length; offset += keySizeBytes) {
-        byte[] block = cipher.doFinal(data, offset, keySizeBytes);
-        baos.write(block);
+  private static long processBlocks(InputStream in, OutputStream out, String transformation,
+      String provider, int mode, Key key, int inBlockSize, int outBlockSize, Operation op)
+      throws IOException, GeneralSecurityException {
+    long start = OperationMetrics.start();
+    CryptoEvent event = CryptoEvent.beginIfEnabled();
+    // a second cipher stage lets one batch start while the previous batch's slowest blocks finish
+    int cipherStages = parallelism > 1 ? 2 : 1;
+    BlockPipeline pipeline = new BlockPipeline(transformation, provider, mode, key, inBlockSize,
+        outBlockSize, parallelism * BLOCKS_PER_WORKER, cipherStages);
+    try {
+      BlockPipeline.Result result = pipeline.run(in, out);
+      OperationMetrics.success(op, start, result.bytes(), result.blocks());
+      CryptoEvent.complete(event, op, transformation, key, result.bytes(), result.blocks(), true);
+      return result.blocks();
+    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+      OperationMetrics.failure(op);
+      CryptoEvent.complete(event, op, transformation, key, 0, 0, false);
+      throw e;
+    }
+  }
+
+
+  public static long encryptBlocks(ByteBuffer src, ByteBuffer dst, PublicKey publicKey,
+      String transformation) {
+    return encryptBlocks(src, dst, publicKey, transformation, null);
+  }
+
+  static long encryptBlocks(ByteBuffer src, ByteBuffer dst, PublicKey publicKey,
+      String transformation, String provider) {
+    long start = OperationMetrics.start();
+    CryptoEvent event = CryptoEvent.beginIfEnabled();
+    try {
+      int keySizeBytes = blockSize(publicKey);
+      int maxPlainBlockSize = maxPlainBlockSize(keySizeBytes, transformation);
+      int length = src.remaining();
+      int count = (length + maxPlainBlockSize - 1) / maxPlainBlockSize;
+      if (dst.remaining() < (long) count * keySizeBytes) {
+        throw new IllegalArgumentException("Output buffer too small for " + count + " blocks");
       }
+      runBlocks(transformation, provider, Cipher.ENCRYPT_MODE, publicKey, src.slice(), length,
+          maxPlainBlockSize, dst.slice(), keySizeBytes, new int[count]);
+      src.position(src.limit());
+      dst.position(dst.position() + count * keySizeBytes);
+      OperationMetrics.success(Operation.ENCRYPT_CHUNKED, start, length, count);
+      CryptoEvent.complete(event, Operation.ENCRYPT_CHUNKED, transformation, publicKey, length, count, true);
+      return count;
+    } catch (GeneralSecurityException | RuntimeException e) {
+      OperationMetrics.failure(Operation.ENCRYPT_CHUNKED);
+      CryptoEvent.complete(event, Operation.ENCRYPT_CHUNKED, transformation, publicKey, 0, 0, false);
+      throw new RuntimeException("RSA chunked encryption failed", e);
+    }
+  }
 
-      return baos.toString(charset);
+  /**
+   * Decrypts whole RSA blocks from {@code src} and writes the plaintext contiguously into
+   * {@code dst}, which needs one full block of room per input block (see
+   * {@link #decryptOutputSize}). Returns the number of plaintext bytes written.
+   */
+  public static int decryptBlocks(ByteBuffer src, ByteBuffer dst, PrivateKey privateKey,
+      String transformation) {
+    return decryptBlocks(src, dst, privateKey, transformation, null);
+  }
 
-    } catch (GeneralSecurityException | IllegalArgumentException | IOException e) {
+  static int decryptBlocks(ByteBuffer src, ByteBuffer dst, PrivateKey privateKey,
+      String transformation, String provider) {
+    long start = OperationMetrics.start();
+    CryptoEvent event = CryptoEvent.beginIfEnabled();
+    try {
+      int keySizeBytes = blockSize(privateKey);
+      int length = src.remaining();
+      if (length % keySizeBytes != 0) {
+        throw new IllegalArgumentException("Ciphertext length (" + length
+            + ") is not a multiple of block size (" + keySizeBytes + ")");
+      }
+      int count = length / keySizeBytes;
+      if (dst.remaining() < (long) count * keySizeBytes) {
+        throw new IllegalArgumentException("Output buffer too small for " + count + " blocks");
+      }
+      int[] lengths = new int[count];
+      ByteBuffer out = dst.slice();
+      runBlocks(transformation, provider, Cipher.DECRYPT_MODE, privateKey, src.slice(), length,
+          keySizeBytes, out, keySizeBytes, lengths);
+      // each block was decrypted into a full-size slot; close the gaps
+      int written = 0;
+      for (int i = 0; i < count; i++) {
+        out.put(written, out, i * keySizeBytes, lengths[i]);
+        written += lengths[i];
+      }
+      src.position(src.limit());
+      dst.position(dst.position() + written);
+      OperationMetrics.success(Operation.DECRYPT_CHUNKED, start, length, count);
+      CryptoEvent.complete(event, Operation.DECRYPT_CHUNKED, transformation, privateKey, length, count, true);
+      return written;
+    } catch (GeneralSecurityException | RuntimeException e) {
+      OperationMetrics.failure(Operation.DECRYPT_CHUNKED);
+      CryptoEvent.complete(event, Operation.DECRYPT_CHUNKED, transformation, privateKey, 0, 0, false);
       throw new RuntimeException("RSA chunked decryption failed", e);
     }
   }
 
+  static int runBlocks(String transformation, String provider, int mode, Key key,
+      ByteBuffer src, int srcLength, int inBlockSize, ByteBuffer dst, int outBlockSize,
+      int[] lengths) throws GeneralSecurityException {
+    int workers = parallelism;
+    int count = (srcLength + inBlockSize - 1) / inBlockSize;
+    BlockTask task = new BlockTask(transformation, provider, mode, key, src, srcLength,
+        inBlockSize, dst, outBlockSize, lengths, 0, count,
+        Math.max(1, (count + workers - 1) / workers));
+    if (workers > 1 && count > 1) {
+      pool().invoke(task);
+    } else {
+      task.compute();
+    }
+    if (task.failure != null) {
+      throw task.failure;
+    }
+    return count;
+  }
+
+
   public static String decryptLargeFromBase64(String base64Ciphertext,
       PrivateKey privateKey) {
     return decryptLargeFromBase64(base64Ciphertext, privateKey, StandardCharsets.UTF_8);
@@ -177,10 +405,16 @@ public final class RSAUtils {
   public static PublicKey decodePublicKeyFromBase64(String base64) {
     try {
       byte[] bytes = Base64.getDecoder().decode(base64);
-      X509EncodedKeySpec spec = new X509EncodedKeySpec(bytes);
-      KeyFactory kf = KeyFactory.getInstance("RSA");
-      return kf.generatePublic(spec);
-    } catch (GeneralSecurityException e) {
+      return PUBLIC_KEYS.get(fingerprint(bytes), fp -> {
+        try {
+          X509EncodedKeySpec spec = new X509EncodedKeySpec(bytes);
+          KeyFactory kf = CipherCache.keyFactory("RSA");
+          return kf.generatePublic(spec);
+        } catch (GeneralSecurityException e) {
+          throw new RuntimeException("Failed to decode public key from Base64", e);
+        }
+      });
+    } catch (IllegalArgumentException e) {
       throw new RuntimeException("Failed to decode public key from Base64", e);
     }
   }
@@ -188,15 +422,49 @@ public final class RSAUtils {
   public static PrivateKey decodePrivateKeyFromBase64(String base64) {
     try {
       byte[] bytes = Base64.getDecoder().decode(base64);
-      PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(bytes);
-      KeyFactory kf = KeyFactory.getInstance("RSA");
-      return kf.generatePrivate(spec);
-    } catch (GeneralSecurityException e) {
+      return PRIVATE_KEYS.get(fingerprint(bytes), fp -> {
+        try {
+          PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(bytes);
+          KeyFactory kf = CipherCache.keyFactory("RSA");
+          return kf.generatePrivate(spec);
+        } catch (GeneralSecurityException e) {
+          throw new RuntimeException("Failed to decode private key from Base64", e);
+        }
+      });
+    } catch (IllegalArgumentException e) {
       throw new RuntimeException("Failed to decode private key from Base64", e);
     }
   }
 
-  private static int maxPlainBlockSize(int keySizeBytes, String transformation) {
+  public static KeyCache<PublicKey> publicKeyCache() {
+    return PUBLIC_KEYS;
+  }
+
+  public static KeyCache<PrivateKey> privateKeyCache() {
+    return PRIVATE_KEYS;
+  }
+
+  public static int blockSize(Key key) {
+    if (key instanceof RSAKey rsaKey) {
+      return rsaKey.getModulus().bitLength() / 8;
+    }
+    throw new IllegalArgumentException("Not an RSA key: " + key.getAlgorithm());
+  }
+
+  public static String fingerprint(Key key) {
+    return fingerprint(key.getEncoded());
+  }
+
+  public static String fingerprint(byte[] encoded) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(encoded);
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  public static int maxPlainBlockSize(int keySizeBytes, String transformation) {
     String t = transformation.toUpperCase();
 
     if (t.contains("OAEPWITHSHA-256")) {
@@ -215,24 +483,94 @@ public final class RSAUtils {
   }
 
   public static PublicKey loadPublicKey(Path path) {
+    long start = OperationMetrics.start();
     try {
       byte[] bytes = Files.readAllBytes(path);
       X509EncodedKeySpec spec = new X509EncodedKeySpec(bytes);
-      KeyFactory kf = KeyFactory.getInstance("RSA");
-      return kf.generatePublic(spec);
+      KeyFactory kf = CipherCache.keyFactory("RSA");
+      PublicKey key = kf.generatePublic(spec);
+      OperationMetrics.success(Operation.KEY_LOAD, start, bytes.length, 0);
+      return key;
     } catch (IOException | GeneralSecurityException e) {
+      OperationMetrics.failure(Operation.KEY_LOAD);
       throw new RuntimeException("Failed to load public key from " + path, e);
     }
   }
 
   public static PrivateKey loadPrivateKey(Path path) {
+    long start = OperationMetrics.start();
     try {
       byte[] bytes = Files.readAllBytes(path);
       PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(bytes);
-      KeyFactory kf = KeyFactory.getInstance("RSA");
-      return kf.generatePrivate(spec);
+      KeyFactory kf = CipherCache.keyFactory("RSA");
+      PrivateKey key = kf.generatePrivate(spec);
+      OperationMetrics.success(Operation.KEY_LOAD, start, bytes.length, 0);
+      return key;
     } catch (IOException | GeneralSecurityException e) {
+      OperationMetrics.failure(Operation.KEY_LOAD);
       throw new RuntimeException("Failed to load private key from " + path, e);
     }
   }
+
+  private static final class BlockTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final String transformation;
+    private final String provider;
+    private final int mode;
+    private final Key key;
+    private final transient ByteBuffer src;
+    private final int srcLength;
+    private final int inBlockSize;
+    private final transient ByteBuffer dst;
+    private final int outBlockSize;
+    private final int[] lengths;
+    private final int from;
+    private final int to;
+    private final int grain;
+    private GeneralSecurityException failure;
+
+    BlockTask(String transformation, String provider, int mode, Key key, ByteBuffer src,
+        int srcLength, int inBlockSize, ByteBuffer dst, int outBlockSize, int[] lengths, int from,
+        int to, int grain) {
+      this.transformation = transformation;
+      this.provider = provider;
+      this.mode = mode;
+      this.key = key;
+      this.src = src;
+      this.srcLength = srcLength;
+      this.inBlockSize = inBlockSize;
+      this.dst = dst;
+      this.outBlockSize = outBlockSize;
+      this.lengths = lengths;
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > grain) {
+        int mid = from + (to - from) / 2;
+        BlockTask left = new BlockTask(transformation, provider, mode, key, src, srcLength,
+            inBlockSize, dst, outBlockSize, lengths, from, mid, grain);
+        BlockTask right = new BlockTask(transformation, provider, mode, key, src, srcLength,
+            inBlockSize, dst, outBlockSize, lengths, mid, to, grain);
+        invokeAll(left, right);
+        failure = left.failure != null ? left.failure : right.failure;
+        return;
+      }
+      try {
+        Cipher cipher = CipherCache.cipher(transformation, provider, mode, key);
+        for (int i = from; i < to; i++) {
+          int offset = i * inBlockSize;
+          int len = Math.min(inBlockSize, srcLength - offset);
+          lengths[i] = cipher.doFinal(src.slice(offset, len),
+              dst.slice(i * outBlockSize, outBlockSize));
+        }
+      } catch (GeneralSecurityException e) {
+        failure = e;
+      }
+    }
+  }
 }
@@ -0,0 +1,317 @@
+package org.example.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterOutputStream;
+import javax.crypto.Cipher;
+import org.example.utils.OperationMetrics.Operation;
+
+/**
+ * One RSA configuration: key size, transformation, text charset and JCA provider. Instances are
+ * immutable and hold no per-call state (ciphers come from the per-thread {@link CipherCache}),
+ * so a single engine can be shared by any number of threads, and PKCS#1 and OAEP engines can
+ * run side by side in the same JVM.
+ */
+public final class RsaEngine {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final int keySize;
+  private final String transformation;
+  private final Charset charset;
+  private final String provider;
+  private final int maxPlainBlockSize;
+  private final int compressionLevel;
+
+  public RsaEngine() {
+    this(RSAUtils.DEFAULT_KEY_SIZE, RSAUtils.DEFAULT_TRANSFORMATION);
+  }
+
+  public RsaEngine(int keySize, String transformation) {
+    this(keySize, transformation, StandardCharsets.UTF_8, null);
+  }
+
+  /** {@code provider} may be {@code null} to use the highest-priority JCA provider. */
+  public RsaEngine(int keySize, String transformation, Charset charset, String provider) {
+    this(keySize, transformation, charset, provider, Compression.OFF);
+  }
+
+  /**
+   * {@code compressionLevel} is a Deflate level (1-9) applied before the Base64 chunked path,
+   * or {@link Compression#OFF}.
+   */
+  public RsaEngine(int keySize, String transformation, Charset charset, String provider,
+      int compressionLevel) {
+    if (keySize < 512 || keySize % 8 != 0) {
+      throw new IllegalArgumentException("Invalid RSA key size: " + keySize);
+    }
+    if (transformation == null || transformation.isBlank()) {
+      throw new IllegalArgumentException("Transformation must not be null or blank");
+    }
+    if (provider != null && Security.getProvider(provider) == null) {
+      throw new IllegalArgumentException("Unknown security provider: " + provider);
+    }
+    this.keySize = keySize;
+    this.transformation = transformation;
+    this.charset = charset == null ? StandardCharsets.UTF_8 : charset;
+    this.provider = provider;
+    this.maxPlainBlockSize = RSAUtils.maxPlainBlockSize(keySize / 8, transformation);
+    this.compressionLevel = Compression.checkLevel(compressionLevel);
+  }
+
+  public int keySize() {
+    return keySize;
+  }
+
+  public String transformation() {
+    return transformation;
+  }
+
+  public Charset charset() {
+    return charset;
+  }
+
+  public String provider() {
+    return provider;
+  }
+
+  public int compressionLevel() {
+    return compressionLevel;
+  }
+
+  /** Largest plaintext per block for keys of the configured size. */
+  public int maxPlainBlockSize() {
+    return maxPlainBlockSize;
+  }
+
+  /** Largest plaintext per block for {@code key}, which may differ from the configured size. */
+  public int maxPlainSize(Key key) {
+    int blockSize = RSAUtils.blockSize(key);
+    return blockSize == keySize / 8
+        ? maxPlainBlockSize
+        : RSAUtils.maxPlainBlockSize(blockSize, transformation);
+  }
+
+  public RsaEngine withTransformation(String transformation) {
+    return new RsaEngine(keySize, transformation, charset, provider, compressionLevel);
+  }
+
+  public RsaEngine withCompression(int compressionLevel) {
+    return new RsaEngine(keySize, transformation, charset, provider, compressionLevel);
+  }
+
+  public KeyPair generateKeyPair() {
+    return generateKeyPair(keySize);
+  }
+
+  /** A pair of {@code keySize} bits from this engine's provider. */
+  public KeyPair generateKeyPair(int keySize) {
+    long start = OperationMetrics.start();
+    KeyEvent event = new KeyEvent();
+    event.begin();
+    try {
+      KeyPairGenerator kpg = provider == null
+          ? KeyPairGenerator.getInstance("RSA")
+          : KeyPairGenerator.getInstance("RSA", provider);
+      kpg.initialize(keySize);
+      KeyPair keyPair = kpg.generateKeyPair();
+      OperationMetrics.success(Operation.KEY_GENERATE, start, 0, 0);
+      event.complete(KeyEvent.Action.GENERATE, keyPair.getPublic(), null, true);
+      return keyPair;
+    } catch (GeneralSecurityException | RuntimeException e) {
+      OperationMetrics.failure(Operation.KEY_GENERATE);
+      event.complete(KeyEvent.Action.GENERATE, null, null, false);
+      throw new RuntimeException("Failed to generate RSA key pair", e);
+    }
+  }
+
+  /** See {@link RSAUtils#encrypt(ByteBuffer, ByteBuffer, PublicKey)}. */
+  public int encrypt(ByteBuffer in, ByteBuffer out, PublicKey publicKey) {
+    long start = OperationMetrics.start();
+    CryptoEvent event = CryptoEvent.beginIfEnabled();
+    int length = in.remaining();
+    try {
+      requireOutput(out, RSAUtils.blockSize(publicKey));
+      int written = cipher(Cipher.ENCRYPT_MODE, publicKey).doFinal(in, out);
+      OperationMetrics.success(Operation.ENCRYPT_SINGLE, start, length, 1);
+      CryptoEvent.complete(event, Operation.ENCRYPT_SINGLE, transformation, publicKey, length, 1, true);
+      return written;
+    } catch (GeneralSecurityException | RuntimeException e) {
+      OperationMetrics.failure(Operation.ENCRYPT_SINGLE);
+      CryptoEvent.complete(event, Operation.ENCRYPT_SINGLE, transformation, publicKey, 0, 0, false);
+      throw new RuntimeException("RSA encryption failed", e);
+    }
+  }
+
+  /** See {@link RSAUtils#decrypt(ByteBuffer, ByteBuffer, PrivateKey)}. */
+  public int decrypt(ByteBuffer in, ByteBuffer out, PrivateKey privateKey) {
+    long start = OperationMetrics.start();
+    CryptoEvent event = CryptoEvent.beginIfEnabled();
+    int length = in.remaining();
+    try {
+      requireOutput(out, RSAUtils.blockSize(privateKey));
+      int written = cipher(Cipher.DECRYPT_MODE, privateKey).doFinal(in, out);
+      OperationMetrics.success(Operation.DECRYPT_SINGLE, start, length, 1);
+      CryptoEvent.complete(event, Operation.DECRYPT_SINGLE, transformation, privateKey, length, 1, true);
+      return written;
+    } catch (GeneralSecurityException | RuntimeException e) {
+      OperationMetrics.failure(Operation.DECRYPT_SINGLE);
+      CryptoEvent.complete(event, Operation.DECRYPT_SINGLE, transformation, privateKey, 0, 0, false);
+      throw new RuntimeException(
+          "RSA decryption failed (is the ciphertext matching the transformation?)", e);
+    }
+  }
+
+  public byte[] encrypt(byte[] plainBytes, PublicKey publicKey) {
+    byte[] encrypted = new byte[RSAUtils.encryptOutputSize(publicKey)];
+    int written = encrypt(ByteBuffer.wrap(plainBytes), ByteBuffer.wrap(encrypted), publicKey);
+    return written == encrypted.length ? encrypted : Arrays.copyOf(encrypted, written);
+  }
+
+  public byte[] decrypt(byte[] cipherBytes, PrivateKey privateKey) {
+    byte[] decrypted = new byte[RSAUtils.decryptOutputSize(privateKey)];
+    int written = decrypt(ByteBuffer.wrap(cipherBytes), ByteBuffer.wrap(decrypted), privateKey);
+    return Arrays.copyOf(decrypted, written);
+  }
+
+  public String encryptToBase64(String plainText, PublicKey publicKey) {
+    return Base64.getEncoder().encodeToString(encrypt(plainText.getBytes(charset), publicKey));
+  }
+
+  public String decryptFromBase64(String base64Ciphertext, PrivateKey privateKey) {
+    byte[] ct;
+    try {
+      ct = Base64.getDecoder().decode(base64Ciphertext);
+    } catch (IllegalArgumentException e) {
+      OperationMetrics.failure(Operation.DECRYPT_SINGLE);
+      CryptoEvent.complete(CryptoEvent.beginIfEnabled(), Operation.DECRYPT_SINGLE,
+          transformation, privateKey, 0, 0, false);
+      throw new RuntimeException(
+          "RSA decryption failed (is the ciphertext Base64 and matching the transformation?)", e);
+    }
+    return new String(decrypt(ct, privateKey), charset);
+  }
+
+  public long encryptLarge(InputStream in, OutputStream out, PublicKey publicKey)
+      throws IOException {
+    return RSAUtils.encryptLarge(in, out, publicKey, transformation, provider);
+  }
+
+  public long decryptLarge(InputStream in, OutputStream out, PrivateKey privateKey)
+      throws IOException {
+    return RSAUtils.decryptLarge(in, out, privateKey, transformation, provider);
+  }
+
+  /**
+   * Chunked RSA with Base64 output. When compression is on the plaintext is deflated first, so a
+   * payload that compresses 5x needs a fifth of the RSA blocks.
+   */
+  public Compression.Stats encryptLargeToBase64(InputStream in, OutputStream out,
+      PublicKey publicKey) throws IOException {
+    CountingInputStream counted = new CountingInputStream(in);
+    if (compressionLevel == Compression.OFF) {
+      try (OutputStream b64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+        encryptLarge(counted, b64, publicKey);
+      }
+      return new Compression.Stats(counted.count(), counted.count());
+    }
+    Deflater deflater = new Deflater(compressionLevel);
+    try {
+      out.write(Compression.MARKER);
+      try (OutputStream b64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+        encryptLarge(new DeflaterInputStream(counted, deflater, BUFFER_SIZE), b64, publicKey);
+      }
+      return new Compression.Stats(counted.count(), deflater.getBytesWritten());
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Skips a leading {@link KeyTag} (the caller already chose the key) and inflates the output
+   * when the input carries the compression marker.
+   */
+  public void decryptLargeFromBase64(InputStream in, OutputStream out, PrivateKey privateKey)
+      throws IOException {
+    InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, BUFFER_SIZE);
+    KeyTag.read(buffered);
+    if (!Compression.skipMarker(buffered)) {
+      decryptLarge(Base64.getDecoder().wrap(buffered), out, privateKey);
+      return;
+    }
+    Inflater inflater = new Inflater();
+    try {
+      InflaterOutputStream inflating = new InflaterOutputStream(
+          new NonClosingOutputStream(out), inflater, BUFFER_SIZE);
+      decryptLarge(Base64.getDecoder().wrap(buffered), inflating, privateKey);
+      inflating.finish();
+      if (!inflater.finished()) {
+        throw new EOFException("Truncated compressed payload");
+      }
+      out.flush();
+    } finally {
+      inflater.end();
+    }
+  }
+
+  public String encryptLargeToBase64(String plainText, PublicKey publicKey) {
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      encryptLargeToBase64(new ByteArrayInputStream(plainText.getBytes(charset)), baos, publicKey);
+      return baos.toString(StandardCharsets.US_ASCII);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public String decryptLargeFromBase64(String base64Ciphertext, PrivateKey privateKey) {
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      decryptLargeFromBase64(
+          new ByteArrayInputStream(base64Ciphertext.getBytes(StandardCharsets.US_ASCII)), baos,
+          privateKey);
+      return baos.toString(charset);
+    } catch (IOException e) {
+      throw new RuntimeException("RSA chunked decryption failed", e);
+    }
+  }
+
+  /** A cached, initialised cipher for this engine's transformation and provider. */
+  Cipher cipher(int mode, Key key) throws GeneralSecurityException {
+    return CipherCache.cipher(transformation, provider, mode, key);
+  }
+
+  private static void requireOutput(ByteBuffer out, int needed) {
+    if (out.remaining() < needed) {
+      throw new IllegalArgumentException(
+          "Output buffer has " + out.remaining() + " bytes remaining, needs " + needed);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RsaEngine[" + keySize + " bits, " + transformation + ", " + charset
+        + (provider == null ? "" : ", " + provider)
+        + (compressionLevel == Compression.OFF ? "" : ", deflate " + compressionLevel) + "]";
+  }
+}
@@ -0,0 +1,158 @@
+package org.example.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.PrivateKey;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Decrypts a plaintext byte range of a chunked ciphertext file while reading only the RSA blocks
+ * that cover it. Chunked encryption fills every block but the last, so the block index is
+ * implicit: plaintext offset {@code n} is in block {@code n / plainBlockSize}. Works on binary
+ * containers (which record the layout in their header) and on Base64 {@code .large.enc} files,
+ * whose unwrapped encoding maps every 3 ciphertext bytes to 4 characters.
+ */
+public final class SeekableDecryptor {
+
+  private SeekableDecryptor() {
+  }
+
+  public static byte[] decryptRange(Path path, long offset, int length, PrivateKey privateKey)
+      throws IOException {
+    return decryptRange(path, offset, length, privateKey, RSAUtils.getTransformation());
+  }
+
+  /**
+   * {@code transformation} only applies to Base64 files; containers record their own in the
+   * header.
+   */
+  public static byte[] decryptRange(Path path, long offset, int length, PrivateKey privateKey,
+      String transformation) throws IOException {
+    return decryptRange(path, offset, length, privateKey, transformation, null);
+  }
+
+  /** Uses {@code engine}'s JCA provider, and its transformation for Base64 files. */
+  public static byte[] decryptRange(Path path, long offset, int length, PrivateKey privateKey,
+      RsaEngine engine) throws IOException {
+    return decryptRange(path, offset, length, privateKey, engine.transformation(),
+        engine.provider());
+  }
+
+  private static byte[] decryptRange(Path path, long offset, int length, PrivateKey privateKey,
+      String transformation, String provider) throws IOException {
+    if (offset < 0 || length < 0) {
+      throw new IllegalArgumentException("Offset and length must not be negative");
+    }
+    if (CipherContainer.isContainer(path)) {
+      return decryptContainerRange(path, offset, length, privateKey, provider);
+    }
+    return decryptBase64Range(path, offset, length, privateKey, transformation, provider);
+  }
+
+  private static byte[] decryptContainerRange(Path path, long offset, int length,
+      PrivateKey privateKey, String provider) throws IOException {
+    CipherContainer.Header header = CipherContainer.readHeader(path);
+    if (header.blockSize() != RSAUtils.blockSize(privateKey)) {
+      throw new IllegalArgumentException("Container block size (" + header.blockSize()
+          + ") does not match the private key (" + RSAUtils.blockSize(privateKey) + ")");
+    }
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      return decrypt(header.blockCount(), header.blockSize(), header.plainBlockSize(),
+          header.transformation(), provider, offset, length, privateKey,
+          (firstByte, byteCount) -> readAt(ch, header.dataOffset() + firstByte, byteCount));
+    }
+  }
+
+  private static byte[] decryptBase64Range(Path path, long offset, int length,
+      PrivateKey privateKey, String transformation, String provider) throws IOException {
+    int blockSize = RSAUtils.blockSize(privateKey);
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      long end = ch.size();
+      long start = end >= KeyTag.LENGTH
+          && KeyTag.parse(readAt(ch, 0, KeyTag.LENGTH).array()) != null ? KeyTag.LENGTH : 0;
+      if (end - start >= Compression.MARKER.length
+          && readAt(ch, start, Compression.MARKER.length)
+              .equals(ByteBuffer.wrap(Compression.MARKER))) {
+        // block n no longer maps to a fixed plaintext offset once the payload is deflated
+        throw new IllegalArgumentException(
+            "Compressed ciphertext cannot be range-decrypted, decrypt the whole file instead");
+      }
+      while (end > start && isWhitespace(readAt(ch, end - 1, 1).get(0))) {
+        end--;
+      }
+      long chars = end - start;
+      if (chars % 4 != 0) {
+        throw new IllegalArgumentException("Not an unwrapped Base64 ciphertext file");
+      }
+      long cipherBytes = chars / 4 * 3 - padding(ch, start, chars);
+      if (cipherBytes % blockSize != 0) {
+        throw new IllegalArgumentException("Ciphertext length (" + cipherBytes
+            + ") is not a multiple of block size (" + blockSize + ")");
+      }
+      return decrypt(cipherBytes / blockSize, blockSize,
+          RSAUtils.maxPlainBlockSize(blockSize, transformation), transformation, provider, offset,
+          length, privateKey, (firstByte, byteCount) -> {
+            // decode whole 4-character groups around the wanted bytes, then trim
+            long group = firstByte / 3;
+            long lastGroup = (firstByte + byteCount + 2) / 3;
+            ByteBuffer text = readAt(ch, start + group * 4,
+                Math.toIntExact((lastGroup - group) * 4));
+            ByteBuffer decoded = Base64.getDecoder().decode(text);
+            int skip = (int) (firstByte - group * 3);
+            return decoded.slice(skip, byteCount);
+          });
+    }
+  }
+
+  private interface BlockReader {
+    ByteBuffer read(long firstByte, int byteCount) throws IOException;
+  }
+
+  private static byte[] decrypt(long blockCount, int blockSize, int plainBlockSize,
+      String transformation, String provider, long offset, int length, PrivateKey privateKey,
+      BlockReader reader) throws IOException {
+    long firstBlock = offset / plainBlockSize;
+    if (length == 0 || firstBlock >= blockCount) {
+      return new byte[0];
+    }
+    long lastBlock = Math.min(blockCount - 1, (offset + length - 1) / plainBlockSize);
+    int blocks = Math.toIntExact(lastBlock - firstBlock + 1);
+    ByteBuffer ciphertext = reader.read(firstBlock * blockSize, blocks * blockSize);
+    ByteBuffer plaintext = ByteBuffer.allocate(blocks * blockSize);
+    int plainBytes = RSAUtils.decryptBlocks(ciphertext, plaintext, privateKey, transformation,
+        provider);
+
+    int from = (int) (offset - firstBlock * plainBlockSize);
+    int to = Math.min(plainBytes, from + length);
+    return from >= to ? new byte[0] : Arrays.copyOfRange(plaintext.array(), from, to);
+  }
+
+  private static long padding(FileChannel ch, long start, long chars) throws IOException {
+    if (chars == 0) {
+      return 0;
+    }
+    ByteBuffer tail = readAt(ch, start + chars - 2, 2);
+    return (tail.get(0) == '=' ? 1 : 0) + (tail.get(1) == '=' ? 1 : 0);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == '\n' || b == '\r' || b == ' ' || b == '\t';
+  }
+
+  private static ByteBuffer readAt(FileChannel ch, long position, int length)
+      throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(length);
+    while (buf.hasRemaining()) {
+      int n = ch.read(buf, position + buf.position());
+      if (n < 0) {
+        throw new EOFException("Ciphertext file is truncated");
+      }
+    }
+    return buf.flip();
+  }
+}